@@ -0,0 +1,53 @@
+// Load benchmark for comparing platform and virtual thread request handling.
+//
+// Run once per mode against the same data, e.g.
+//   SPRING_THREADS_VIRTUAL_ENABLED=false java -jar target/*.jar
+//   k6 run -e BASE_URL=http://localhost:8080 -e EMAIL=load@test.dev -e PASSWORD=secret loadtest/tasks.js
+// then restart with SPRING_THREADS_VIRTUAL_ENABLED=true and run it again.
+// Compare http_reqs (throughput) and the p(99) of http_req_duration in the two summaries.
+
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const CONNECTIONS = parseInt(__ENV.CONNECTIONS || '5000', 10);
+
+export const options = {
+    scenarios: {
+        reads: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: CONNECTIONS },
+                { duration: '2m', target: CONNECTIONS },
+                { duration: '15s', target: 0 },
+            ],
+            gracefulRampDown: '10s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export function setup() {
+    const res = http.post(`${BASE_URL}/api/auth/login`, JSON.stringify({
+        email: __ENV.EMAIL,
+        password: __ENV.PASSWORD,
+    }), { headers: { 'Content-Type': 'application/json' } });
+    check(res, { 'logged in': (r) => r.status === 200 });
+    return { token: res.json('accessToken') };
+}
+
+export default function (data) {
+    const params = { headers: { Authorization: `Bearer ${data.token}` } };
+
+    // Mix of cached, paged and search reads so both Postgres and Redis are exercised
+    const responses = http.batch([
+        ['GET', `${BASE_URL}/api/tasks?limit=50`, null, params],
+        ['GET', `${BASE_URL}/api/tasks/today`, null, params],
+        ['GET', `${BASE_URL}/api/search/tasks?q=report`, null, params],
+    ]);
+    responses.forEach((res) => check(res, { 'status 200': (r) => r.status === 200 }));
+}
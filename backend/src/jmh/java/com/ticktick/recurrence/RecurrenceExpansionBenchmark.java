@@ -0,0 +1,79 @@
+package com.ticktick.recurrence;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expands a workspace-sized set of recurring tasks over one calendar year, the widest window the
+ * calendar asks for. Run with {@code mvn -Pjmh compile exec:exec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecurrenceExpansionBenchmark {
+    
+    // The shapes recurring tasks take in practice; COUNT rules have to be walked from their start
+    private static final List<String> RULES = List.of(
+            "FREQ=DAILY",
+            "FREQ=DAILY;INTERVAL=3",
+            "FREQ=WEEKLY;BYDAY=MO,WE,FR",
+            "FREQ=WEEKLY;INTERVAL=2;BYDAY=TU,TH",
+            "FREQ=WEEKLY;BYDAY=MO,TU,WE,TH,FR;COUNT=400",
+            "FREQ=MONTHLY;BYMONTHDAY=1,15",
+            "FREQ=MONTHLY;BYDAY=-1FR",
+            "FREQ=MONTHLY;BYMONTHDAY=31",
+            "FREQ=YEARLY;BYMONTH=3;BYDAY=2SU",
+            "FREQ=DAILY;UNTIL=20271231T000000");
+    
+    // Mirrors app.recurrence.max-occurrences-per-task
+    private static final int LIMIT = 1000;
+    
+    @Param("10000")
+    private int ruleCount;
+    
+    private RecurrenceRule[] rules;
+    private LocalDateTime[] starts;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        rules = new RecurrenceRule[ruleCount];
+        starts = new LocalDateTime[ruleCount];
+        LocalDateTime earliest = LocalDateTime.of(2022, 1, 1, 9, 0);
+        for (int i = 0; i < ruleCount; i++) {
+            rules[i] = RecurrenceRule.parse(RULES.get(i % RULES.size()));
+            // Series started at some point in the four years before the window
+            starts[i] = earliest.plusDays(random.nextInt(4 * 365)).plusMinutes(15L * random.nextInt(40));
+        }
+        from = LocalDateTime.of(2026, 1, 1, 0, 0);
+        to = from.plusYears(1);
+    }
+    
+    @Benchmark
+    public void expandOneYear(Blackhole blackhole) {
+        for (int i = 0; i < ruleCount; i++) {
+            blackhole.consume(RecurrenceExpander.between(rules[i], starts[i], from, to, Set.of(), LIMIT));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.ticktick.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.SimpleAsyncTaskSchedulerBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Slf4j
+@Configuration
+public class AsyncConfig {
+    
+    public static final String APPLICATION_EXECUTOR = "applicationTaskExecutor";
+    public static final String REALTIME_EXECUTOR = "realtimeExecutor";
+    public static final String EMAIL_EXECUTOR = "emailExecutor";
+    public static final String PUSH_EXECUTOR = "pushExecutor";
+    
+    @Value("${app.realtime.executor.lanes:4}")
+    private int realtimeLanes;
+    
+    @Value("${app.realtime.executor.queue-capacity:1000}")
+    private int queueCapacity;
+    
+    @Value("${app.notifications.email.threads:4}")
+    private int emailThreads;
+    
+    @Value("${app.notifications.email.queue-capacity:500}")
+    private int emailQueueCapacity;
+    
+    @Value("${app.notifications.push.threads:4}")
+    private int pushThreads;
+    
+    @Value("${app.notifications.push.queue-capacity:500}")
+    private int pushQueueCapacity;
+    
+    /**
+     * Declaring any executor switches off Boot's default one, so it is recreated here from the
+     * auto-configured builders. The "taskExecutor" alias keeps plain {@code @Async} methods on it.
+     *
+     * With spring.threads.virtual.enabled on Java 21 every task gets its own virtual thread and
+     * spring.task.execution.simple.concurrency-limit caps how many run at once; otherwise it is
+     * the usual bounded platform thread pool.
+     */
+    @Primary
+    @Bean(name = {APPLICATION_EXECUTOR, "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder threadPoolBuilder,
+                                                     SimpleAsyncTaskExecutorBuilder simpleBuilder,
+                                                     Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return simpleBuilder.build();
+        }
+        return threadPoolBuilder.build();
+    }
+    
+    /**
+     * The WebSocket broker registers a TaskScheduler of its own for heartbeats, which makes Boot's
+     * scheduler back off: {@code @Scheduled} pollers would run on the broker's pool and
+     * spring.task.scheduling would be ignored. So the scheduler is declared here, from the same
+     * auto-configured builders, and is the one {@code @Scheduled} and injection points pick up.
+     */
+    @Primary
+    @Bean(name = "taskScheduler")
+    public TaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder threadPoolBuilder,
+                                       SimpleAsyncTaskSchedulerBuilder simpleBuilder,
+                                       Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return simpleBuilder.build();
+        }
+        return threadPoolBuilder.build();
+    }
+    
+    /**
+     * Runs post-commit side effects of task mutations off the request thread. Events are laned by
+     * user, so one user's events are handled in the order they were published. The queues are
+     * bounded; when one is full the event is dropped and logged rather than blocking requests,
+     * since clients recover missed events through /api/sync.
+     */
+    @Bean(name = REALTIME_EXECUTOR)
+    public LaneExecutor realtimeExecutor() {
+        return new LaneExecutor("realtime-", realtimeLanes, Math.max(queueCapacity / realtimeLanes, 1), (task, pool) ->
+                log.warn("Realtime lane saturated ({} queued), dropping event", pool.getQueue().size()));
+    }
+    
+    /**
+     * Each notification channel gets its own fixed pool and queue, so a slow SMTP server can
+     * only back up email. The outbox workers claim no more rows than the queue has room for.
+     */
+    @Bean(name = EMAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor emailExecutor() {
+        return channelExecutor("email-", emailThreads, emailQueueCapacity);
+    }
+    
+    @Bean(name = PUSH_EXECUTOR)
+    public ThreadPoolTaskExecutor pushExecutor() {
+        return channelExecutor("push-", pushThreads, pushQueueCapacity);
+    }
+    
+    private static ThreadPoolTaskExecutor channelExecutor(String threadNamePrefix, int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
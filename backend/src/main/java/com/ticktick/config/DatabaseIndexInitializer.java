@@ -0,0 +1,61 @@
+package com.ticktick.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the PostgreSQL specific columns and indexes that Hibernate's schema update cannot express.
+ * Runs after the schema update and every statement is idempotent, so it is safe on each startup.
+ * Queries depend on all of them, so a failure (pg_trgm or btree_gist not installable, for one)
+ * stops startup instead of surfacing later as failing searches.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DatabaseIndexInitializer implements ApplicationRunner {
+    
+    private static final List<String> STATEMENTS = List.of(
+            // Task full-text search, kept current by PostgreSQL on every insert and update
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "ALTER TABLE tasks ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (" +
+                    "setweight(to_tsvector('simple', coalesce(title, '')), 'A') || " +
+                    "setweight(to_tsvector('simple', coalesce(description, '')), 'B') || " +
+                    "setweight(to_tsvector('simple', coalesce(notes, '')), 'C')) STORED",
+            "CREATE INDEX IF NOT EXISTS idx_tasks_search_vector ON tasks USING GIN (search_vector)",
+            "CREATE INDEX IF NOT EXISTS idx_tasks_title_trgm ON tasks USING GIN (title gin_trgm_ops)",
+            // Calendar and timeline windows: the span a task occupies, a single point when only one date
+            // is set and NULL when neither is; btree_gist lets user_id share the GiST index
+            "CREATE EXTENSION IF NOT EXISTS btree_gist",
+            "ALTER TABLE tasks ADD COLUMN IF NOT EXISTS active_range tsrange GENERATED ALWAYS AS (" +
+                    "CASE WHEN coalesce(start_date, due_date) IS NULL THEN NULL ELSE tsrange(" +
+                    "least(coalesce(start_date, due_date), coalesce(due_date, start_date)), " +
+                    "greatest(coalesce(start_date, due_date), coalesce(due_date, start_date)), '[]') END) STORED",
+            "CREATE INDEX IF NOT EXISTS idx_tasks_user_active_range ON tasks USING GIST (user_id, active_range)",
+            // Keyset pages compare (sort_order, id), which skips NULLs; rows written before the column had a
+            // default are backfilled so it can be made NOT NULL, which schema update never adds to an existing column
+            "UPDATE tasks SET sort_order = 0 WHERE sort_order IS NULL",
+            "ALTER TABLE tasks ALTER COLUMN sort_order SET NOT NULL",
+            // Push rows have no recipient; schema update never relaxes a NOT NULL created by an older release
+            "ALTER TABLE notification_outbox ALTER COLUMN recipient DROP NOT NULL"
+    );
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String statement : STATEMENTS) {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (Exception e) {
+                log.error("Failed to apply database statement: {}", statement, e);
+                throw new IllegalStateException("Database setup failed: " + statement, e);
+            }
+        }
+    }
+}
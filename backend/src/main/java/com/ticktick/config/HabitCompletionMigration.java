@@ -0,0 +1,162 @@
+package com.ticktick.config;
+
+import com.ticktick.entity.HabitCompletionYear;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Folds the old one-row-per-day habit_completions table into habit_completion_years bitsets.
+ *
+ * The legacy table stays in place while nodes of the previous release may still be writing to it,
+ * and is dropped by a later release. Each run claims the rows not yet migrated (marking them in the
+ * same statement) and ORs their days into the year rows, so days checked in on either side before or
+ * during a rolling deploy are kept, and rows written by old nodes later are picked up on the next
+ * startup. Its foreign key is removed so that it no longer blocks deleting habits.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HabitCompletionMigration implements ApplicationRunner {
+    
+    private static final int BATCH_SIZE = 500;
+    
+    private static final String PREPARE = "DO $$ DECLARE fk record; BEGIN " +
+            "ALTER TABLE habit_completions ADD COLUMN IF NOT EXISTS migrated boolean NOT NULL DEFAULT false; " +
+            "FOR fk IN SELECT conname FROM pg_constraint " +
+            "WHERE conrelid = 'habit_completions'::regclass AND contype = 'f' LOOP " +
+            "EXECUTE format('ALTER TABLE habit_completions DROP CONSTRAINT %I', fk.conname); " +
+            "END LOOP; END $$";
+    
+    // Claimed rows are marked in the same statement, so a row written concurrently is either merged now or left for the next run
+    private static final String CLAIM = "WITH claimed AS (UPDATE habit_completions SET migrated = true " +
+            "WHERE NOT migrated RETURNING habit_id, completion_date) " +
+            "SELECT c.habit_id, c.completion_date FROM claimed c JOIN habits h ON h.id = c.habit_id " +
+            "ORDER BY c.habit_id, c.completion_date";
+    
+    private static final String INSERT = "INSERT INTO habit_completion_years (habit_id, year, bits, completed_count, updated_at) " +
+            "VALUES (?, ?, ?, ?, now()) ON CONFLICT (habit_id, year) DO NOTHING";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        Boolean legacyTable = jdbcTemplate.queryForObject(
+                "SELECT to_regclass('habit_completions') IS NOT NULL", Boolean.class);
+        if (!Boolean.TRUE.equals(legacyTable)) {
+            return;
+        }
+        try {
+            long days = transactionTemplate.execute(status -> migrate());
+            if (days > 0) {
+                log.info("Merged {} habit completion days into yearly bitsets", days);
+            }
+        } catch (Exception e) {
+            log.error("Habit completion migration failed; it is retried on the next startup", e);
+        }
+    }
+    
+    private long migrate() {
+        jdbcTemplate.execute(PREPARE);
+        
+        List<YearBits> batch = new ArrayList<>();
+        YearBits[] current = new YearBits[1];
+        long[] days = new long[1];
+        
+        // Streamed in order, so only one habit-year is held in memory at a time
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(CLAIM);
+            statement.setFetchSize(1000);
+            return statement;
+        }, resultSet -> {
+            long habitId = resultSet.getLong(1);
+            LocalDate date = resultSet.getDate(2).toLocalDate();
+            if (current[0] == null || current[0].habitId != habitId || current[0].year != date.getYear()) {
+                add(current[0], batch);
+                current[0] = new YearBits(habitId, date.getYear());
+            }
+            current[0].set(date);
+            days[0]++;
+        });
+        add(current[0], batch);
+        flush(batch);
+        return days[0];
+    }
+    
+    private void add(YearBits yearBits, List<YearBits> batch) {
+        if (yearBits == null) {
+            return;
+        }
+        batch.add(yearBits);
+        if (batch.size() >= BATCH_SIZE) {
+            flush(batch);
+        }
+    }
+    
+    private void flush(List<YearBits> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int[] inserted = jdbcTemplate.batchUpdate(INSERT, batch.stream()
+                .map(yearBits -> new Object[]{yearBits.habitId, yearBits.year, yearBits.bits, yearBits.count})
+                .toList());
+        Set<Long> habitIds = new LinkedHashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            // The year already had a bitset, written by this release before the migration ran.
+            // A driver that reports no count gets the merge too; ORing in the same days again is harmless
+            if (inserted[i] != 1) {
+                merge(batch.get(i));
+            }
+            habitIds.add(batch.get(i).habitId);
+        }
+        // Streaks and totals no longer match the bitsets; they are rebuilt the next time they are read
+        jdbcTemplate.batchUpdate("DELETE FROM habit_stats WHERE habit_id = ?",
+                habitIds.stream().map(habitId -> new Object[]{habitId}).toList());
+        batch.clear();
+    }
+    
+    private void merge(YearBits yearBits) {
+        byte[] bits = jdbcTemplate.queryForObject(
+                "SELECT bits FROM habit_completion_years WHERE habit_id = ? AND year = ? FOR UPDATE",
+                byte[].class, yearBits.habitId, yearBits.year);
+        int count = 0;
+        for (int i = 0; i < HabitCompletionYear.BYTES; i++) {
+            bits[i] |= yearBits.bits[i];
+            count += Integer.bitCount(bits[i] & 0xFF);
+        }
+        jdbcTemplate.update("UPDATE habit_completion_years SET bits = ?, completed_count = ?, updated_at = now() " +
+                "WHERE habit_id = ? AND year = ?", bits, count, yearBits.habitId, yearBits.year);
+    }
+    
+    private static final class YearBits {
+        private final long habitId;
+        private final int year;
+        private final byte[] bits = new byte[HabitCompletionYear.BYTES];
+        private int count;
+        
+        YearBits(long habitId, int year) {
+            this.habitId = habitId;
+            this.year = year;
+        }
+        
+        void set(LocalDate date) {
+            int bit = date.getDayOfYear() - 1;
+            if ((bits[bit >> 3] & (1 << (bit & 7))) == 0) {
+                bits[bit >> 3] |= (byte) (1 << (bit & 7));
+                count++;
+            }
+        }
+    }
+}
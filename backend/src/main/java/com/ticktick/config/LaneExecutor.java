@@ -0,0 +1,50 @@
+package com.ticktick.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A fixed set of single-threaded lanes. Tasks submitted with the same key always run on the same
+ * lane, so they run one at a time and in submission order; different keys spread over the lanes.
+ */
+public class LaneExecutor implements InitializingBean, DisposableBean {
+    
+    private final List<ThreadPoolTaskExecutor> lanes;
+    
+    public LaneExecutor(String threadNamePrefix, int laneCount, int queueCapacityPerLane,
+                        RejectedExecutionHandler rejectedExecutionHandler) {
+        this.lanes = IntStream.range(0, laneCount)
+                .mapToObj(lane -> {
+                    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+                    executor.setCorePoolSize(1);
+                    executor.setMaxPoolSize(1);
+                    executor.setQueueCapacity(queueCapacityPerLane);
+                    executor.setThreadNamePrefix(threadNamePrefix + lane + "-");
+                    executor.setRejectedExecutionHandler(rejectedExecutionHandler);
+                    executor.setWaitForTasksToCompleteOnShutdown(true);
+                    executor.setAwaitTerminationSeconds(5);
+                    return executor;
+                })
+                .collect(Collectors.toList());
+    }
+    
+    public void execute(Object key, Runnable task) {
+        lanes.get(Math.floorMod(key.hashCode(), lanes.size())).execute(task);
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        lanes.forEach(ThreadPoolTaskExecutor::initialize);
+    }
+    
+    @Override
+    public void destroy() {
+        lanes.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+}
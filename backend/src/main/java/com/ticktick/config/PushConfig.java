@@ -0,0 +1,43 @@
+package com.ticktick.config;
+
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.ticktick.push.FirebasePushGateway;
+import com.ticktick.push.LoggingPushGateway;
+import com.ticktick.push.PushGateway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Configuration
+public class PushConfig {
+    
+    @Bean
+    @ConditionalOnProperty(name = "app.push.gateway", havingValue = "firebase")
+    public PushGateway firebasePushGateway(@Value("${app.firebase.config-path}") Resource config) throws IOException {
+        FirebaseApp app;
+        if (FirebaseApp.getApps().isEmpty()) {
+            try (InputStream credentials = config.getInputStream()) {
+                app = FirebaseApp.initializeApp(FirebaseOptions.builder()
+                        .setCredentials(GoogleCredentials.fromStream(credentials))
+                        .build());
+            }
+        } else {
+            app = FirebaseApp.getInstance();
+        }
+        return new FirebasePushGateway(FirebaseMessaging.getInstance(app));
+    }
+    
+    @Bean
+    @ConditionalOnProperty(name = "app.push.gateway", havingValue = "logging", matchIfMissing = true)
+    public PushGateway loggingPushGateway() {
+        return new LoggingPushGateway();
+    }
+}
@@ -5,10 +5,15 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.time.Duration;
 
 @Configuration
 public class RedisConfig {
@@ -19,10 +24,31 @@ public class RedisConfig {
     @Value("${spring.redis.port}")
     private int redisPort;
     
+    @Value("${app.redis.pool.max-total:64}")
+    private int poolMaxTotal;
+    
+    @Value("${app.redis.pool.max-idle:16}")
+    private int poolMaxIdle;
+    
+    @Value("${app.redis.pool.max-wait:2000}")
+    private long poolMaxWaitMillis;
+    
     @Bean
     public RedisConnectionFactory redisConnectionFactory() {
         RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisHost, redisPort);
-        return new JedisConnectionFactory(config);
+        
+        // The pool is the bulkhead for Redis: callers wait at most max-wait for a connection
+        // instead of piling up, which matters once request threads are virtual and unbounded
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(poolMaxTotal);
+        poolConfig.setMaxIdle(poolMaxIdle);
+        poolConfig.setMaxWait(Duration.ofMillis(poolMaxWaitMillis));
+        
+        JedisClientConfiguration clientConfig = JedisClientConfiguration.builder()
+                .usePooling()
+                .poolConfig(poolConfig)
+                .build();
+        return new JedisConnectionFactory(config, clientConfig);
     }
     
     @Bean
@@ -35,4 +61,9 @@ public class RedisConfig {
         template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
         return template;
     }
+    
+    @Bean
+    public StringRedisTemplate stringRedisTemplate() {
+        return new StringRedisTemplate(redisConnectionFactory());
+    }
 }
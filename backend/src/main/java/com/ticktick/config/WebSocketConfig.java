@@ -1,6 +1,14 @@
 package com.ticktick.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticktick.websocket.RealtimeMessenger;
+import com.ticktick.websocket.RedisRelayListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -12,6 +20,8 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
+        // The simple broker only delivers to this node's sessions; in redis relay mode
+        // RealtimeMessenger fans messages out to every node's simple broker
         config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
@@ -23,4 +33,16 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
     }
+    
+    @Bean
+    @ConditionalOnProperty(name = "app.websocket.relay", havingValue = "redis")
+    public RedisMessageListenerContainer webSocketRelayContainer(RedisConnectionFactory connectionFactory,
+                                                                 RealtimeMessenger messenger,
+                                                                 ObjectMapper objectMapper) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(new RedisRelayListener(messenger, objectMapper),
+                new ChannelTopic(RealtimeMessenger.RELAY_CHANNEL));
+        return container;
+    }
 }
@@ -0,0 +1,22 @@
+package com.ticktick.controller;
+
+import com.ticktick.dto.bootstrap.BootstrapDTO;
+import com.ticktick.security.UserPrincipal;
+import com.ticktick.service.BootstrapService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/bootstrap")
+@RequiredArgsConstructor
+public class BootstrapController {
+    
+    private final BootstrapService bootstrapService;
+    
+    @GetMapping
+    public ResponseEntity<BootstrapDTO> getBootstrap(@AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(bootstrapService.getBootstrap(currentUser));
+    }
+}
@@ -0,0 +1,38 @@
+package com.ticktick.controller;
+
+import com.ticktick.dto.calendar.CalendarDayDTO;
+import com.ticktick.dto.calendar.CalendarWindowDTO;
+import com.ticktick.security.UserPrincipal;
+import com.ticktick.service.CalendarService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/calendar")
+@RequiredArgsConstructor
+public class CalendarController {
+    
+    private final CalendarService calendarService;
+    
+    @GetMapping("/tasks")
+    public ResponseEntity<CalendarWindowDTO> getTasks(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(calendarService.getTasks(from, to, currentUser));
+    }
+    
+    @GetMapping("/days")
+    public ResponseEntity<List<CalendarDayDTO>> getDayCounts(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(calendarService.getDayCounts(from, to, currentUser));
+    }
+}
@@ -0,0 +1,42 @@
+package com.ticktick.controller;
+
+import com.ticktick.dto.device.DeviceDTO;
+import com.ticktick.dto.device.DeviceRequest;
+import com.ticktick.security.UserPrincipal;
+import com.ticktick.service.DeviceService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/devices")
+@RequiredArgsConstructor
+public class DeviceController {
+    
+    private final DeviceService deviceService;
+    
+    @PostMapping
+    public ResponseEntity<DeviceDTO> registerDevice(
+            @Valid @RequestBody DeviceRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(deviceService.registerDevice(request, currentUser));
+    }
+    
+    @GetMapping
+    public ResponseEntity<List<DeviceDTO>> getDevices(
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(deviceService.getDevices(currentUser));
+    }
+    
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteDevice(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        deviceService.deleteDevice(id, currentUser);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.ticktick.controller;
+
+import com.ticktick.security.UserPrincipal;
+import com.ticktick.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+public class ExportController {
+    
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    
+    private final ExportService exportService;
+    
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportWorkspace(
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        Long userId = currentUser.getId();
+        
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+                exportService.exportWorkspace(userId, gzipOut);
+                gzipOut.finish();
+            } else {
+                exportService.exportWorkspace(userId, out);
+            }
+        };
+        
+        String fileName = "ticktick-export.ndjson" + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
@@ -2,8 +2,10 @@ package com.ticktick.controller;
 
 import com.ticktick.dto.habit.HabitDTO;
 import com.ticktick.dto.habit.HabitRequest;
+import com.ticktick.dto.habit.HabitStatsDTO;
 import com.ticktick.security.UserPrincipal;
 import com.ticktick.service.HabitService;
+import com.ticktick.service.HabitStatsService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -21,6 +23,7 @@ import java.util.List;
 public class HabitController {
 
     private final HabitService habitService;
+    private final HabitStatsService habitStatsService;
 
     @PostMapping
     public ResponseEntity<HabitDTO> createHabit(
@@ -32,8 +35,18 @@ public class HabitController {
 
     @GetMapping
     public ResponseEntity<List<HabitDTO>> getHabits(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
             @AuthenticationPrincipal UserPrincipal currentUser) {
-        return ResponseEntity.ok(habitService.getHabits(currentUser));
+        return ResponseEntity.ok(habitService.getHabits(from, to, currentUser));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<List<HabitStatsDTO>> getStats(
+            @RequestParam(required = false) Integer year,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        int heatmapYear = year != null ? year : LocalDate.now().getYear();
+        return ResponseEntity.ok(habitStatsService.getStats(heatmapYear, currentUser));
     }
 
     @PostMapping("/{id}/toggle")
@@ -0,0 +1,26 @@
+package com.ticktick.controller;
+
+import com.ticktick.dto.search.TaskSearchResultDTO;
+import com.ticktick.security.UserPrincipal;
+import com.ticktick.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+    
+    private final SearchService searchService;
+    
+    @GetMapping("/tasks")
+    public ResponseEntity<TaskSearchResultDTO> searchTasks(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(searchService.searchTasks(q, page, size, currentUser));
+    }
+}
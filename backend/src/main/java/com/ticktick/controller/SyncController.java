@@ -0,0 +1,24 @@
+package com.ticktick.controller;
+
+import com.ticktick.dto.sync.SyncResponse;
+import com.ticktick.security.UserPrincipal;
+import com.ticktick.service.SyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+public class SyncController {
+    
+    private final SyncService syncService;
+    
+    @GetMapping
+    public ResponseEntity<SyncResponse> sync(
+            @RequestParam(defaultValue = "0") long since,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(syncService.getChanges(since, currentUser));
+    }
+}
@@ -0,0 +1,51 @@
+package com.ticktick.controller;
+
+import com.ticktick.dto.task.TagDTO;
+import com.ticktick.dto.task.TagRequest;
+import com.ticktick.security.UserPrincipal;
+import com.ticktick.service.TagService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/tags")
+@RequiredArgsConstructor
+public class TagController {
+    
+    private final TagService tagService;
+    
+    @PostMapping
+    public ResponseEntity<TagDTO> createTag(
+            @Valid @RequestBody TagRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(tagService.createTag(request, currentUser));
+    }
+    
+    @PutMapping("/{id}")
+    public ResponseEntity<TagDTO> updateTag(
+            @PathVariable Long id,
+            @Valid @RequestBody TagRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(tagService.updateTag(id, request, currentUser));
+    }
+    
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteTag(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        tagService.deleteTag(id, currentUser);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @GetMapping
+    public ResponseEntity<List<TagDTO>> getTags(@AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(tagService.getTags(currentUser));
+    }
+}
@@ -1,16 +1,27 @@
 package com.ticktick.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.ticktick.dto.task.OccurrenceDTO;
+import com.ticktick.dto.task.SuggestionDTO;
 import com.ticktick.dto.task.TaskDTO;
+import com.ticktick.dto.task.TaskPage;
 import com.ticktick.dto.task.TaskRequest;
+import com.ticktick.dto.task.TaskSummaryDTO;
 import com.ticktick.security.UserPrincipal;
+import com.ticktick.service.OccurrenceService;
+import com.ticktick.service.TaskReadCache;
 import com.ticktick.service.TaskService;
+import com.ticktick.service.TypeaheadService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,7 +29,14 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TaskController {
     
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
+    private static final TypeReference<List<TaskDTO>> TASK_LIST_TYPE = new TypeReference<>() {};
+    
     private final TaskService taskService;
+    private final TypeaheadService typeaheadService;
+    private final TaskReadCache taskReadCache;
+    private final OccurrenceService occurrenceService;
     
     @PostMapping
     public ResponseEntity<TaskDTO> createTask(
@@ -51,23 +69,54 @@ public class TaskController {
         return ResponseEntity.ok(taskService.getTask(id, currentUser));
     }
     
+    // Listing endpoints page by keyset once a cursor or limit is supplied; the next cursor goes in a header
     @GetMapping
     public ResponseEntity<List<TaskDTO>> getAllTasks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(taskReadCache.get(currentUser.getId(), "all", TASK_LIST_TYPE,
+                    () -> taskService.getAllTasks(currentUser)));
+        }
+        return toPageResponse(taskService.getAllTasks(cursor, limit, currentUser));
+    }
+    
+    @GetMapping(params = "view=summary")
+    public ResponseEntity<List<TaskSummaryDTO>> getAllTaskSummaries(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             @AuthenticationPrincipal UserPrincipal currentUser) {
-        return ResponseEntity.ok(taskService.getAllTasks(currentUser));
+        return toPageResponse(taskService.getTaskSummaries(cursor, limit, currentUser));
     }
     
     @GetMapping("/list/{listId}")
     public ResponseEntity<List<TaskDTO>> getTasksByList(
             @PathVariable Long listId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             @AuthenticationPrincipal UserPrincipal currentUser) {
-        return ResponseEntity.ok(taskService.getTasksByList(listId, currentUser));
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(taskReadCache.get(currentUser.getId(), "list:" + listId, TASK_LIST_TYPE,
+                    () -> taskService.getTasksByList(listId, currentUser)));
+        }
+        return toPageResponse(taskService.getTasksByList(listId, cursor, limit, currentUser));
+    }
+    
+    @GetMapping(value = "/list/{listId}", params = "view=summary")
+    public ResponseEntity<List<TaskSummaryDTO>> getTaskSummariesByList(
+            @PathVariable Long listId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return toPageResponse(taskService.getTaskSummariesByList(listId, cursor, limit, currentUser));
     }
     
     @GetMapping("/today")
     public ResponseEntity<List<TaskDTO>> getTodayTasks(
             @AuthenticationPrincipal UserPrincipal currentUser) {
-        return ResponseEntity.ok(taskService.getTodayTasks(currentUser));
+        return ResponseEntity.ok(taskReadCache.get(currentUser.getId(), "today:" + LocalDate.now(), TASK_LIST_TYPE,
+                () -> taskService.getTodayTasks(currentUser)));
     }
     
     @GetMapping("/overdue")
@@ -79,7 +128,63 @@ public class TaskController {
     @GetMapping("/search")
     public ResponseEntity<List<TaskDTO>> searchTasks(
             @RequestParam String query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(taskService.searchTasks(query, currentUser));
+        }
+        return toPageResponse(taskService.searchTasks(query, cursor, limit, currentUser));
+    }
+    
+    @GetMapping(value = "/search", params = "view=summary")
+    public ResponseEntity<List<TaskSummaryDTO>> searchTaskSummaries(
+            @RequestParam String query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return toPageResponse(taskService.searchTaskSummaries(query, cursor, limit, currentUser));
+    }
+    
+    // Recurring tasks expanded over [from, to); occurrences after a task's due date are virtual
+    @GetMapping("/occurrences")
+    public ResponseEntity<List<OccurrenceDTO>> getOccurrences(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(occurrenceService.getOccurrences(from, to, currentUser));
+    }
+    
+    @PostMapping("/{id}/occurrences/{start}/materialize")
+    public ResponseEntity<TaskDTO> materializeOccurrence(
+            @PathVariable Long id,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
             @AuthenticationPrincipal UserPrincipal currentUser) {
-        return ResponseEntity.ok(taskService.searchTasks(query, currentUser));
+        return ResponseEntity.ok(taskService.materializeOccurrence(id, start, currentUser));
+    }
+    
+    @DeleteMapping("/{id}/occurrences/{start}")
+    public ResponseEntity<Void> cancelOccurrence(
+            @PathVariable Long id,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        taskService.cancelOccurrence(id, start, currentUser);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(typeaheadService.suggest(currentUser.getId(), prefix, limit));
+    }
+    
+    private <T> ResponseEntity<List<T>> toPageResponse(TaskPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 }
@@ -0,0 +1,27 @@
+package com.ticktick.dto.bootstrap;
+
+import com.ticktick.dto.task.FolderDTO;
+import com.ticktick.dto.task.TagDTO;
+import com.ticktick.dto.task.TaskListDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BootstrapDTO {
+    
+    // Each folder carries its own lists
+    private List<FolderDTO> folders;
+    
+    // Lists outside any folder
+    private List<TaskListDTO> lists;
+    
+    private List<TagDTO> tags;
+    private SmartListCountsDTO smartListCounts;
+}
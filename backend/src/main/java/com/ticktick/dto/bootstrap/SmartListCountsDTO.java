@@ -0,0 +1,17 @@
+package com.ticktick.dto.bootstrap;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Open tasks only; completed ones never show in the badges
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SmartListCountsDTO {
+    private Integer today;
+    private Integer overdue;
+    private Integer next7Days;
+}
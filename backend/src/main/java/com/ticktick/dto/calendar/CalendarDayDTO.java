@@ -0,0 +1,18 @@
+package com.ticktick.dto.calendar;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarDayDTO {
+    private LocalDate date;
+    private Long total;
+    private Long completed;
+}
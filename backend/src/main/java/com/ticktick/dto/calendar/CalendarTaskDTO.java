@@ -0,0 +1,26 @@
+package com.ticktick.dto.calendar;
+
+import com.ticktick.entity.Task;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarTaskDTO {
+    private Long id;
+    private String title;
+    private Task.Priority priority;
+    private Task.Status status;
+    private LocalDateTime startDate;
+    private LocalDateTime dueDate;
+    private Boolean allDay;
+    private Boolean isRecurring;
+    private Long taskListId;
+    private Long parentTaskId;
+}
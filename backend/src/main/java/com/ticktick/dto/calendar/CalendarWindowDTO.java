@@ -0,0 +1,20 @@
+package com.ticktick.dto.calendar;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarWindowDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private List<CalendarTaskDTO> tasks;
+    private Boolean truncated;
+}
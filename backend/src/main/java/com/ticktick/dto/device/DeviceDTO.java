@@ -0,0 +1,21 @@
+package com.ticktick.dto.device;
+
+import com.ticktick.entity.Device;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceDTO {
+    private Long id;
+    private Device.Platform platform;
+    private String name;
+    private LocalDateTime lastSeenAt;
+    private LocalDateTime createdAt;
+}
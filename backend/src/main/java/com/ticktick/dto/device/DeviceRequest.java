@@ -0,0 +1,21 @@
+package com.ticktick.dto.device;
+
+import com.ticktick.entity.Device;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceRequest {
+    @NotBlank
+    @Size(max = 512)
+    private String token;
+    private Device.Platform platform;
+    private String name;
+}
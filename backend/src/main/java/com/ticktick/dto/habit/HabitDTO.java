@@ -17,6 +17,8 @@ public class HabitDTO {
     private String name;
     private String color;
     private String icon;
-    private Set<LocalDate> completedDates;
+    private Set<LocalDate> completedDates; // only those between completedFrom and completedTo
+    private LocalDate completedFrom; // the window completedDates covers; null bounds mean all history
+    private LocalDate completedTo;
     private Integer sortOrder;
 }
@@ -0,0 +1,22 @@
+package com.ticktick.dto.habit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HabitStatsDTO {
+    private Long habitId;
+    private Integer currentStreak; // ends today, or yesterday while today is still open
+    private Integer longestStreak;
+    private Integer totalCompletions;
+    private Double completionRate7Days;
+    private Double completionRate30Days;
+    private Double completionRateAllTime;
+    private Integer heatmapYear;
+    private String heatmap; // Base64 bitset, bit dayOfYear - 1, least significant bit first
+}
@@ -0,0 +1,27 @@
+package com.ticktick.dto.search;
+
+import com.ticktick.entity.Task;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskSearchHitDTO {
+    private Long id;
+    private String title;
+    private Task.Priority priority;
+    private Task.Status status;
+    private LocalDateTime dueDate;
+    private Long taskListId;
+    private Double rank;
+    
+    // Matched terms are wrapped in <mark></mark>
+    private String titleHighlight;
+    private String snippet;
+}
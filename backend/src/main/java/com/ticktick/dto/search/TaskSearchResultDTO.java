@@ -0,0 +1,20 @@
+package com.ticktick.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskSearchResultDTO {
+    private String query;
+    private List<TaskSearchHitDTO> hits;
+    private Integer page;
+    private Integer size;
+    private Boolean hasMore;
+}
@@ -0,0 +1,33 @@
+package com.ticktick.dto.sync;
+
+import com.ticktick.dto.habit.HabitDTO;
+import com.ticktick.dto.task.ReminderDTO;
+import com.ticktick.dto.task.TagDTO;
+import com.ticktick.dto.task.TaskDTO;
+import com.ticktick.dto.task.TaskListDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponse {
+    
+    // Pass back as "since" on the next sync
+    private Long version;
+    
+    // When true the delta is unavailable; the client must refetch everything and then sync from version
+    private Boolean fullResync;
+    
+    private List<TaskDTO> tasks;
+    private List<TaskListDTO> taskLists;
+    private List<TagDTO> tags;
+    private List<HabitDTO> habits;
+    private List<ReminderDTO> reminders;
+    private List<TombstoneDTO> deleted;
+}
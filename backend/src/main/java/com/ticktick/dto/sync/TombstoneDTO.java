@@ -0,0 +1,16 @@
+package com.ticktick.dto.sync;
+
+import com.ticktick.entity.SyncChange;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TombstoneDTO {
+    private SyncChange.EntityType type;
+    private Long id;
+}
@@ -0,0 +1,35 @@
+package com.ticktick.dto.task;
+
+import com.ticktick.entity.Task;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One occurrence of a recurring task in a date range. Virtual occurrences exist only in this
+ * response; {@code taskId} then points at the recurring task and {@code occurrenceStart} is what
+ * the occurrence endpoints take to materialize or cancel it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccurrenceDTO {
+    private Long taskId;
+    private LocalDateTime occurrenceStart;
+    private Boolean virtual;
+    
+    // Set when the occurrence was materialized into its own task
+    private Long materializedTaskId;
+    
+    private String title;
+    private Task.Priority priority;
+    private Task.Status status;
+    private LocalDateTime dueDate;
+    private LocalDateTime startDate;
+    private Boolean allDay;
+    private Long taskListId;
+}
@@ -14,6 +14,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class ReminderDTO {
     private Long id;
+    private Long taskId;
     private LocalDateTime remindAt;
     private Reminder.ReminderType type;
     private Boolean isSent;
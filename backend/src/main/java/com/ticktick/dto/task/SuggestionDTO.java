@@ -0,0 +1,20 @@
+package com.ticktick.dto.task;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    private Type type;
+    private Long id;
+    private String text;
+    
+    public enum Type {
+        LIST, TAG, TASK
+    }
+}
@@ -0,0 +1,13 @@
+package com.ticktick.dto.task;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class TagRequest {
+    
+    @NotBlank(message = "Name is required")
+    private String name;
+    
+    private String color;
+}
@@ -0,0 +1,41 @@
+package com.ticktick.dto.task;
+
+import com.ticktick.entity.Task;
+import com.ticktick.exception.BadRequestException;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in a task listing ordered by (sortOrder, id). Clients only ever see the
+ * opaque encoded form and send it back unchanged to fetch the next page.
+ */
+public record TaskCursor(int sortOrder, long id) {
+    
+    public static final TaskCursor START = new TaskCursor(Integer.MIN_VALUE, 0L);
+    
+    public static TaskCursor after(Task task) {
+        return new TaskCursor(task.getSortOrder() != null ? task.getSortOrder() : 0, task.getId());
+    }
+    
+    public static TaskCursor decode(String token) {
+        if (!StringUtils.hasText(token)) {
+            return START;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            return new TaskCursor(
+                    Integer.parseInt(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+    
+    public String encode() {
+        String raw = sortOrder + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -32,6 +32,7 @@ public class TaskDTO {
     private Integer recurrenceInterval;
     private LocalDateTime recurrenceEndDate;
     private String recurrenceDays;
+    private String recurrenceRule;
     
     private Long taskListId;
     private String taskListName;
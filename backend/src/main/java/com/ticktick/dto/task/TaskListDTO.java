@@ -22,7 +22,9 @@ public class TaskListDTO {
     private Boolean isShared;
     private Long folderId;
     private String folderName;
-    private Integer taskCount;
+    private Integer taskCount; // open and completed together
+    private Integer openCount;
+    private Integer completedCount;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
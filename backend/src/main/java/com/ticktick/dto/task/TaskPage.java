@@ -0,0 +1,17 @@
+package com.ticktick.dto.task;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskPage<T> {
+    private List<T> items;
+    private String nextCursor; // null when this is the last page
+}
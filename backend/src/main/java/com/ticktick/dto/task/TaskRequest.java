@@ -41,6 +41,7 @@ public class TaskRequest {
     private Integer recurrenceInterval;
     private LocalDateTime recurrenceEndDate;
     private String recurrenceDays;
+    private String recurrenceRule;
     
     private Integer sortOrder;
 }
@@ -0,0 +1,24 @@
+package com.ticktick.dto.task;
+
+import com.ticktick.entity.Task;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskSummaryDTO {
+    private Long id;
+    private String title;
+    private Task.Priority priority;
+    private Task.Status status;
+    private LocalDateTime dueDate;
+    private Long taskListId;
+    private Set<Long> tagIds;
+}
@@ -0,0 +1,50 @@
+package com.ticktick.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A push-capable client of a user. Clients register their FCM token on every start, which keeps
+ * {@code lastSeenAt} fresh; tokens FCM reports as invalid and devices not seen for a while are pruned.
+ */
+@Entity
+@Table(name = "devices", indexes = @Index(name = "idx_devices_user", columnList = "user_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Device {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, unique = true, length = 512)
+    private String token;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private Platform platform = Platform.WEB;
+    
+    private String name;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    @Column(name = "last_seen_at", nullable = false)
+    private LocalDateTime lastSeenAt;
+    
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+    
+    public enum Platform {
+        ANDROID, IOS, WEB
+    }
+}
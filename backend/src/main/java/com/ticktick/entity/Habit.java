@@ -6,7 +6,6 @@ import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
@@ -33,11 +32,10 @@ public class Habit {
     @Column(nullable = false)
     private String icon;
     
-    @ElementCollection
-    @CollectionTable(name = "habit_completions", joinColumns = @JoinColumn(name = "habit_id"))
-    @Column(name = "completion_date")
+    // One bitset row per year; see HabitCompletionYear
+    @OneToMany(mappedBy = "habit", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
-    private Set<LocalDate> completedDates = new HashSet<>();
+    private Set<HabitCompletionYear> completionYears = new HashSet<>();
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
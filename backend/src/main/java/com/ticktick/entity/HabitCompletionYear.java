@@ -0,0 +1,88 @@
+package com.ticktick.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One calendar year of a habit's check-ins as a bitset: bit {@code dayOfYear - 1} is set when the
+ * habit was completed that day, least significant bit first within each byte (the order
+ * PostgreSQL's get_bit uses). 46 bytes cover a leap year.
+ */
+@Entity
+@Table(name = "habit_completion_years",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"habit_id", "year"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HabitCompletionYear {
+    
+    public static final int BYTES = 46;
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "habit_id", nullable = false)
+    private Habit habit;
+    
+    @Column(nullable = false)
+    private Integer year;
+    
+    @Column(nullable = false, length = BYTES)
+    @Builder.Default
+    private byte[] bits = new byte[BYTES];
+    
+    // Number of set bits, kept in step with every toggle
+    @Column(name = "completed_count", nullable = false)
+    @Builder.Default
+    private Integer completedCount = 0;
+    
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+    
+    public boolean isCompleted(LocalDate date) {
+        int bit = date.getDayOfYear() - 1;
+        return (bits[bit >> 3] & (1 << (bit & 7))) != 0;
+    }
+    
+    /**
+     * Flips the day and returns whether it is now completed.
+     */
+    public boolean toggle(LocalDate date) {
+        int bit = date.getDayOfYear() - 1;
+        // A fresh array, so Hibernate's dirty check sees the change
+        byte[] updated = bits.clone();
+        updated[bit >> 3] ^= (byte) (1 << (bit & 7));
+        bits = updated;
+        boolean completed = isCompleted(date);
+        completedCount += completed ? 1 : -1;
+        return completed;
+    }
+    
+    /**
+     * Completed days between {@code from} and {@code to} (inclusive) that fall in this year, in order.
+     */
+    public List<LocalDate> completedBetween(LocalDate from, LocalDate to) {
+        LocalDate first = LocalDate.ofYearDay(year, 1);
+        LocalDate last = first.plusYears(1).minusDays(1);
+        int start = (from.isAfter(first) ? from : first).getDayOfYear() - 1;
+        int end = (to.isBefore(last) ? to : last).getDayOfYear() - 1;
+        
+        List<LocalDate> dates = new ArrayList<>();
+        for (int bit = start; bit <= end; bit++) {
+            if ((bits[bit >> 3] & (1 << (bit & 7))) != 0) {
+                dates.add(first.plusDays(bit));
+            }
+        }
+        return dates;
+    }
+}
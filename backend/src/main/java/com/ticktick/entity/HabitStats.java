@@ -0,0 +1,43 @@
+package com.ticktick.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running totals for a habit, updated by every toggle instead of being recomputed from history.
+ */
+@Entity
+@Table(name = "habit_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HabitStats {
+    
+    @Id
+    private Long habitId;
+    
+    // Removed by the database together with the habit
+    @OneToOne(fetch = FetchType.LAZY)
+    @MapsId
+    @JoinColumn(name = "habit_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Habit habit;
+    
+    @Column(name = "total_completions", nullable = false)
+    @Builder.Default
+    private Integer totalCompletions = 0;
+    
+    @Column(name = "longest_streak", nullable = false)
+    @Builder.Default
+    private Integer longestStreak = 0;
+    
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
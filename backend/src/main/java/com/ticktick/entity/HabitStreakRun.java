@@ -0,0 +1,53 @@
+package com.ticktick.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDate;
+
+/**
+ * A maximal run of consecutive completed days. Runs never touch or overlap, so a toggle only
+ * ever looks at the run ending the day before, the run starting the day after, or the run
+ * containing the day.
+ */
+@Entity
+@Table(name = "habit_streak_runs", indexes = {
+    @Index(name = "idx_habit_streak_runs_end", columnList = "habit_id, end_date"),
+    @Index(name = "idx_habit_streak_runs_start", columnList = "habit_id, start_date"),
+    @Index(name = "idx_habit_streak_runs_days", columnList = "habit_id, days")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HabitStreakRun {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Removed by the database together with the habit
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "habit_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Habit habit;
+    
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+    
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+    
+    // Length in days, stored so the longest run is an index lookup
+    @Column(nullable = false)
+    private Integer days;
+    
+    public void setSpan(LocalDate start, LocalDate end) {
+        this.startDate = start;
+        this.endDate = end;
+        this.days = (int) (end.toEpochDay() - start.toEpochDay()) + 1;
+    }
+}
@@ -0,0 +1,51 @@
+package com.ticktick.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Latest change of one entity in a user's workspace. There is one row per entity; every write
+ * moves it to the user's next change version, and deletes leave it behind as a tombstone.
+ */
+@Entity
+@Table(name = "sync_changes",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sync_changes_entity",
+                columnNames = {"user_id", "entity_type", "entity_id"}),
+        indexes = @Index(name = "idx_sync_changes_user_version", columnList = "user_id, version"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncChange {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false)
+    private EntityType entityType;
+    
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+    
+    @Column(nullable = false)
+    private Long version;
+    
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean deleted = false;
+    
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+    
+    public enum EntityType {
+        TASK, LIST, TAG, HABIT, REMINDER
+    }
+}
@@ -0,0 +1,30 @@
+package com.ticktick.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Per-user change counter. Bumping it locks the row until commit, so versions become visible
+ * to readers in increasing order.
+ */
+@Entity
+@Table(name = "sync_versions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncVersion {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(nullable = false)
+    private Long version;
+    
+    // Tombstones up to this version have been pruned; older clients must resync fully
+    @Column(name = "tombstone_floor", nullable = false)
+    @Builder.Default
+    private Long tombstoneFloor = 0L;
+}
@@ -10,7 +10,10 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks", indexes = {
+    @Index(name = "idx_tasks_user_sort", columnList = "user_id, sort_order, id"),
+    @Index(name = "idx_tasks_list_sort", columnList = "task_list_id, sort_order, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -54,7 +57,7 @@ public class Task {
     @Builder.Default
     private Boolean allDay = false;
     
-    @Column(name = "sort_order")
+    @Column(name = "sort_order", nullable = false)
     @Builder.Default
     private Integer sortOrder = 0;
     
@@ -76,6 +79,10 @@ public class Task {
     @Column(name = "recurrence_days")
     private String recurrenceDays; // JSON array for custom days
     
+    // RFC 5545 RRULE; takes precedence over the legacy fields above when set
+    @Column(name = "recurrence_rule", length = 500)
+    private String recurrenceRule;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -109,6 +116,10 @@ public class Task {
     @Builder.Default
     private Set<Attachment> attachments = new HashSet<>();
     
+    @OneToMany(mappedBy = "task", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Builder.Default
+    private Set<TaskOccurrenceException> occurrenceExceptions = new HashSet<>();
+    
     @Column(name = "pomodoro_count")
     @Builder.Default
     private Integer pomodoroCount = 0;
@@ -0,0 +1,53 @@
+package com.ticktick.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single occurrence of a recurring task that no longer follows the rule: either cancelled,
+ * or modified and backed by its own materialized task row.
+ */
+@Entity
+@Table(name = "task_occurrence_exceptions",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"task_id", "original_start"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TaskOccurrenceException {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "task_id", nullable = false)
+    private Task task;
+    
+    @Column(name = "original_start", nullable = false)
+    private LocalDateTime originalStart;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+    
+    // Deleting the materialized row leaves the occurrence excluded from the series
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "materialized_task_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private Task materializedTask;
+    
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+    
+    public enum Type {
+        CANCELLED, MODIFIED
+    }
+}
@@ -65,8 +65,6 @@ public class User {
     @Builder.Default
     private Set<Task> tasks = new HashSet<>();
     
-    private String fcmToken; // For push notifications
-    
     @Column(name = "dark_mode")
     @Builder.Default
     private Boolean darkMode = false;
@@ -0,0 +1,10 @@
+package com.ticktick.event;
+
+import com.ticktick.dto.task.SuggestionDTO;
+
+/**
+ * A task title, list name or tag name that changed; {@code text} is null when the item was removed.
+ * Published inside the mutating transaction and applied to the typeahead index after it commits.
+ */
+public record SuggestionChangedEvent(Long userId, SuggestionDTO.Type type, Long id, String text) {
+}
@@ -0,0 +1,64 @@
+package com.ticktick.event;
+
+import com.ticktick.entity.Tag;
+import com.ticktick.entity.Task;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Published by {@code TaskService} inside the mutating transaction; listeners that talk to
+ * clients should use {@code @TransactionalEventListener} so rolled back changes are never seen.
+ *
+ * {@code before} is only set for updates and {@code after} is null for deletions.
+ */
+public record TaskChangedEvent(Long userId, Long taskId, Type type,
+                               Map<String, Object> before, Map<String, Object> after) {
+    
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+    
+    public static TaskChangedEvent created(Long userId, Long taskId, Map<String, Object> state) {
+        return new TaskChangedEvent(userId, taskId, Type.CREATED, null, state);
+    }
+    
+    public static TaskChangedEvent updated(Long userId, Long taskId, Map<String, Object> before, Map<String, Object> after) {
+        return new TaskChangedEvent(userId, taskId, Type.UPDATED, before, after);
+    }
+    
+    public static TaskChangedEvent deleted(Long userId, Long taskId) {
+        return new TaskChangedEvent(userId, taskId, Type.DELETED, null, null);
+    }
+    
+    /**
+     * Captures the fields clients render for a task, without the subtask tree. Take one before
+     * mutating a task and pass it to {@link #updated} so listeners can tell which fields changed.
+     */
+    public static Map<String, Object> snapshot(Task task) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("title", task.getTitle());
+        fields.put("description", task.getDescription());
+        fields.put("notes", task.getNotes());
+        fields.put("priority", task.getPriority());
+        fields.put("status", task.getStatus());
+        fields.put("dueDate", task.getDueDate());
+        fields.put("startDate", task.getStartDate());
+        fields.put("completedAt", task.getCompletedAt());
+        fields.put("allDay", task.getAllDay());
+        fields.put("sortOrder", task.getSortOrder());
+        fields.put("isRecurring", task.getIsRecurring());
+        fields.put("recurrenceType", task.getRecurrenceType());
+        fields.put("recurrenceInterval", task.getRecurrenceInterval());
+        fields.put("recurrenceEndDate", task.getRecurrenceEndDate());
+        fields.put("recurrenceDays", task.getRecurrenceDays());
+        fields.put("recurrenceRule", task.getRecurrenceRule());
+        fields.put("taskListId", task.getTaskList() != null ? task.getTaskList().getId() : null);
+        fields.put("parentTaskId", task.getParentTask() != null ? task.getParentTask().getId() : null);
+        fields.put("tagIds", task.getTags().stream().map(Tag::getId).sorted().collect(Collectors.toList()));
+        fields.put("pomodoroCount", task.getPomodoroCount());
+        fields.put("timeSpent", task.getTimeSpent());
+        return fields;
+    }
+}
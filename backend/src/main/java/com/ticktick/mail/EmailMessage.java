@@ -0,0 +1,4 @@
+package com.ticktick.mail;
+
+public record EmailMessage(String to, String subject, String body) {
+}
@@ -0,0 +1,46 @@
+package com.ticktick.mail;
+
+/**
+ * Sending limits of known SMTP providers, picked from the configured host. Values stay below
+ * the published limits so bursts at the top of the hour do not trigger provider throttling.
+ */
+public enum MailProvider {
+    
+    GMAIL(2.0, 90),
+    SES(12.0, 500),
+    SENDGRID(50.0, 1000),
+    GENERIC(10.0, 100);
+    
+    private final double messagesPerSecond;
+    private final int messagesPerConnection;
+    
+    MailProvider(double messagesPerSecond, int messagesPerConnection) {
+        this.messagesPerSecond = messagesPerSecond;
+        this.messagesPerConnection = messagesPerConnection;
+    }
+    
+    public double getMessagesPerSecond() {
+        return messagesPerSecond;
+    }
+    
+    public int getMessagesPerConnection() {
+        return messagesPerConnection;
+    }
+    
+    public static MailProvider forHost(String host) {
+        if (host == null) {
+            return GENERIC;
+        }
+        String normalized = host.toLowerCase();
+        if (normalized.endsWith("gmail.com") || normalized.endsWith("googlemail.com")) {
+            return GMAIL;
+        }
+        if (normalized.startsWith("email-smtp.") && normalized.endsWith("amazonaws.com")) {
+            return SES;
+        }
+        if (normalized.endsWith("sendgrid.net")) {
+            return SENDGRID;
+        }
+        return GENERIC;
+    }
+}
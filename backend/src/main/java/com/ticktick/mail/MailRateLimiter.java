@@ -0,0 +1,35 @@
+package com.ticktick.mail;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces sends evenly at a fixed rate shared by all email workers, and lets the transport
+ * pause everyone when the provider answers with a transient (4xx) throttling error.
+ */
+public class MailRateLimiter {
+    
+    private final long intervalNanos;
+    private long nextFreeNanos = System.nanoTime();
+    
+    public MailRateLimiter(double messagesPerSecond) {
+        this.intervalNanos = messagesPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / messagesPerSecond) : 0;
+    }
+    
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextFreeNanos);
+            nextFreeNanos = slot + intervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+    
+    public synchronized void pause(Duration duration) {
+        nextFreeNanos = Math.max(nextFreeNanos, System.nanoTime() + duration.toNanos());
+    }
+}
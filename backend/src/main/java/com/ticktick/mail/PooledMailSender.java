@@ -0,0 +1,157 @@
+package com.ticktick.mail;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends batches of emails over pooled SMTP connections at a provider-aware rate.
+ *
+ * Limits default to the {@link MailProvider} matched from spring.mail.host and can be
+ * overridden with app.mail.rate-per-second and app.mail.messages-per-connection. Pointing
+ * spring.mail.host/port at a local SMTP server (and disabling STARTTLS) is enough to
+ * exercise the whole path without a real provider.
+ */
+@Slf4j
+@Component
+public class PooledMailSender {
+    
+    private final JavaMailSenderImpl mailSender;
+    private final SmtpTransportPool pool;
+    private final MailRateLimiter rateLimiter;
+    private final String from;
+    private final Duration throttlePause;
+    
+    public PooledMailSender(JavaMailSenderImpl mailSender,
+                            @Value("${app.mail.from:noreply@ticktick.com}") String from,
+                            @Value("${app.mail.max-connections:4}") int maxConnections,
+                            @Value("${app.mail.rate-per-second:0}") double ratePerSecond,
+                            @Value("${app.mail.messages-per-connection:0}") int messagesPerConnection,
+                            @Value("${app.mail.idle-timeout:30000}") long idleTimeoutMillis,
+                            @Value("${app.mail.borrow-timeout:10000}") long borrowTimeoutMillis,
+                            @Value("${app.mail.throttle-pause:30000}") long throttlePauseMillis) {
+        MailProvider provider = MailProvider.forHost(mailSender.getHost());
+        double rate = ratePerSecond > 0 ? ratePerSecond : provider.getMessagesPerSecond();
+        int perConnection = messagesPerConnection > 0 ? messagesPerConnection : provider.getMessagesPerConnection();
+        
+        this.mailSender = mailSender;
+        this.from = from;
+        this.pool = new SmtpTransportPool(mailSender, maxConnections, perConnection, idleTimeoutMillis, borrowTimeoutMillis);
+        this.rateLimiter = new MailRateLimiter(rate);
+        this.throttlePause = Duration.ofMillis(throttlePauseMillis);
+        log.info("SMTP delivery via {} ({}): {} msg/s, {} messages per connection, {} connections",
+                mailSender.getHost(), provider, rate, perConnection, maxConnections);
+    }
+    
+    /**
+     * Sends the messages in order, reusing one connection for as long as it allows. Returns one
+     * entry per message: null when it was accepted, otherwise the failure.
+     */
+    public List<Exception> send(List<EmailMessage> messages) {
+        List<Exception> results = new ArrayList<>(messages.size());
+        SmtpTransportPool.PooledTransport connection = null;
+        try {
+            for (EmailMessage message : messages) {
+                if (connection != null && connection.getSent() >= pool.getMessagesPerConnection()) {
+                    pool.release(connection, false);
+                    connection = null;
+                }
+                try {
+                    if (connection == null) {
+                        connection = pool.borrow();
+                    }
+                    rateLimiter.acquire();
+                    MimeMessage mime = toMimeMessage(message);
+                    connection.getTransport().sendMessage(mime, mime.getAllRecipients());
+                    connection.recordSent();
+                    results.add(null);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    results.add(e);
+                } catch (SendFailedException e) {
+                    // Rejected sender, recipient or message; the connection is still usable unless the server is closing it
+                    onFailure(e);
+                    results.add(e);
+                    if (replyCode(e) == 421 && connection != null) {
+                        pool.release(connection, false);
+                        connection = null;
+                    }
+                } catch (MessagingException e) {
+                    onFailure(e);
+                    results.add(e);
+                    if (connection != null) {
+                        pool.release(connection, false);
+                        connection = null;
+                    }
+                }
+            }
+        } finally {
+            if (connection != null) {
+                pool.release(connection, true);
+            }
+        }
+        return results;
+    }
+    
+    @Scheduled(fixedDelayString = "${app.mail.idle-timeout:30000}")
+    public void evictIdleConnections() {
+        pool.evictIdle();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+    
+    private MimeMessage toMimeMessage(EmailMessage message) throws MessagingException {
+        MimeMessage mime = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mime, "UTF-8");
+        helper.setFrom(from);
+        helper.setTo(message.to());
+        helper.setSubject(message.subject());
+        helper.setText(message.body());
+        return mime;
+    }
+    
+    // 4xx replies (421 service not available, 45x try again later) mean the provider is throttling us
+    private void onFailure(MessagingException e) {
+        int code = replyCode(e);
+        if (code >= 400 && code < 500) {
+            log.warn("SMTP server is throttling ({} {}), pausing email delivery for {}", code, e.getMessage(), throttlePause);
+            rateLimiter.pause(throttlePause);
+        }
+    }
+    
+    /**
+     * The SMTP reply code a send failed with: the server's answer to MAIL FROM or DATA, otherwise
+     * that of the first rejected recipient, found by walking the chained exceptions. -1 when the
+     * failure carries no reply, such as a dropped connection.
+     */
+    static int replyCode(MessagingException e) {
+        Exception next = e;
+        // Bounded, in case a provider's exception chain ever loops back on itself
+        for (int depth = 0; next != null && depth < 100; depth++) {
+            if (next instanceof SMTPSendFailedException failed) {
+                return failed.getReturnCode();
+            }
+            if (next instanceof SMTPAddressFailedException failed) {
+                return failed.getReturnCode();
+            }
+            next = next instanceof MessagingException messaging ? messaging.getNextException() : null;
+        }
+        return -1;
+    }
+}
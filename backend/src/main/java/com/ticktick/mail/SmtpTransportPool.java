@@ -0,0 +1,136 @@
+package com.ticktick.mail;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps authenticated SMTP connections open between batches, so the TCP, STARTTLS and AUTH
+ * round trips are paid once per connection instead of once per message. Connections are
+ * recycled after the provider's per-connection message limit or when idle for too long.
+ */
+@Slf4j
+public class SmtpTransportPool {
+    
+    private final JavaMailSenderImpl mailSender;
+    private final int messagesPerConnection;
+    private final long idleTimeoutNanos;
+    private final long borrowTimeoutMillis;
+    private final Semaphore permits;
+    private final BlockingQueue<PooledTransport> idle = new LinkedBlockingQueue<>();
+    
+    public SmtpTransportPool(JavaMailSenderImpl mailSender, int maxConnections, int messagesPerConnection,
+                             long idleTimeoutMillis, long borrowTimeoutMillis) {
+        this.mailSender = mailSender;
+        this.messagesPerConnection = messagesPerConnection;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+    
+    public PooledTransport borrow() throws MessagingException, InterruptedException {
+        if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw new MessagingException("Timed out waiting for an SMTP connection");
+        }
+        try {
+            PooledTransport pooled;
+            while ((pooled = idle.poll()) != null) {
+                if (System.nanoTime() - pooled.lastUsedNanos < idleTimeoutNanos && pooled.transport.isConnected()) {
+                    return pooled;
+                }
+                close(pooled);
+            }
+            Transport transport = mailSender.getSession().getTransport(protocol());
+            transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+            return new PooledTransport(transport);
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Returns a connection. Broken connections, and ones that reached the provider's message
+     * limit, are closed instead of pooled.
+     */
+    public void release(PooledTransport pooled, boolean healthy) {
+        try {
+            if (healthy && pooled.sent < messagesPerConnection) {
+                pooled.lastUsedNanos = System.nanoTime();
+                idle.offer(pooled);
+            } else {
+                close(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+    
+    // Resolved like JavaMailSenderImpl does: spring.mail.protocol, then the session's mail.transport.protocol, then smtp
+    private String protocol() {
+        if (mailSender.getProtocol() != null) {
+            return mailSender.getProtocol();
+        }
+        String sessionProtocol = mailSender.getSession().getProperty("mail.transport.protocol");
+        return sessionProtocol != null ? sessionProtocol : "smtp";
+    }
+    
+    public int getMessagesPerConnection() {
+        return messagesPerConnection;
+    }
+    
+    public void evictIdle() {
+        long now = System.nanoTime();
+        idle.removeIf(pooled -> {
+            if (now - pooled.lastUsedNanos >= idleTimeoutNanos) {
+                close(pooled);
+                return true;
+            }
+            return false;
+        });
+    }
+    
+    public void shutdown() {
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            close(pooled);
+        }
+    }
+    
+    private static void close(PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection cleanly", e);
+        }
+    }
+    
+    public static class PooledTransport {
+        
+        private final Transport transport;
+        private int sent;
+        private long lastUsedNanos = System.nanoTime();
+        
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+        
+        public Transport getTransport() {
+            return transport;
+        }
+        
+        public int getSent() {
+            return sent;
+        }
+        
+        void recordSent() {
+            sent++;
+        }
+    }
+}
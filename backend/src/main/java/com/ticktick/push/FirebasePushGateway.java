@@ -0,0 +1,49 @@
+package com.ticktick.push;
+
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.MulticastMessage;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class FirebasePushGateway implements PushGateway {
+    
+    private final FirebaseMessaging firebaseMessaging;
+    
+    @Override
+    public List<PushOutcome> sendMulticast(List<String> tokens, String title, String body) throws FirebaseMessagingException {
+        MulticastMessage message = MulticastMessage.builder()
+                .addAllTokens(tokens)
+                .setNotification(Notification.builder()
+                        .setTitle(title)
+                        .setBody(body)
+                        .build())
+                .build();
+        
+        BatchResponse response = firebaseMessaging.sendEachForMulticast(message);
+        List<PushOutcome> outcomes = new ArrayList<>(tokens.size());
+        for (SendResponse sendResponse : response.getResponses()) {
+            outcomes.add(toOutcome(sendResponse));
+        }
+        return outcomes;
+    }
+    
+    private static PushOutcome toOutcome(SendResponse response) {
+        if (response.isSuccessful()) {
+            return PushOutcome.DELIVERED;
+        }
+        MessagingErrorCode code = response.getException() != null ? response.getException().getMessagingErrorCode() : null;
+        if (code == MessagingErrorCode.UNREGISTERED || code == MessagingErrorCode.INVALID_ARGUMENT
+                || code == MessagingErrorCode.SENDER_ID_MISMATCH) {
+            return PushOutcome.INVALID_TOKEN;
+        }
+        return PushOutcome.FAILED;
+    }
+}
@@ -0,0 +1,20 @@
+package com.ticktick.push;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stand-in used when Firebase is not configured (local development and tests): every token
+ * is reported as delivered and the message is only logged.
+ */
+@Slf4j
+public class LoggingPushGateway implements PushGateway {
+    
+    @Override
+    public List<PushOutcome> sendMulticast(List<String> tokens, String title, String body) {
+        log.info("Push notification '{}' would be sent to {} devices", title, tokens.size());
+        return Collections.nCopies(tokens.size(), PushOutcome.DELIVERED);
+    }
+}
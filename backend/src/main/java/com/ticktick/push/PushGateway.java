@@ -0,0 +1,26 @@
+package com.ticktick.push;
+
+import java.util.List;
+
+/**
+ * Sends one notification to many device tokens in a single call.
+ */
+public interface PushGateway {
+    
+    /** Most tokens FCM accepts in one multicast call. */
+    int MAX_TOKENS_PER_CALL = 500;
+    
+    /**
+     * Sends to at most {@link #MAX_TOKENS_PER_CALL} tokens and returns one outcome per token, in
+     * the same order. Throws only when the call as a whole failed.
+     */
+    List<PushOutcome> sendMulticast(List<String> tokens, String title, String body) throws Exception;
+    
+    enum PushOutcome {
+        DELIVERED,
+        /** The token is no longer valid and its device should be forgotten. */
+        INVALID_TOKEN,
+        /** Transient failure for this token. */
+        FAILED
+    }
+}
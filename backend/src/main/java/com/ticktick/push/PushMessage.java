@@ -0,0 +1,7 @@
+package com.ticktick.push;
+
+/**
+ * A notification for all of a user's registered devices.
+ */
+public record PushMessage(Long userId, String title, String body) {
+}
@@ -0,0 +1,313 @@
+package com.ticktick.recurrence;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Expands a {@link RecurrenceRule} lazily, one period (day, week, month or year) at a time, so
+ * nothing is generated past the end of the requested range. Rules without COUNT jump straight to
+ * the period containing the range start instead of walking the series from the beginning.
+ */
+public final class RecurrenceExpander {
+    
+    // A rule whose filters can never match (BYMONTH=2;BYMONTHDAY=30) ends after this many empty periods
+    private static final int MAX_EMPTY_PERIODS = 4000;
+    
+    private RecurrenceExpander() {
+    }
+    
+    /**
+     * Occurrences of the series starting at {@code start} that fall in {@code [from, to)}, skipping
+     * {@code exclusions}. At most {@code limit} occurrences are returned.
+     */
+    public static List<LocalDateTime> between(RecurrenceRule rule, LocalDateTime start, LocalDateTime from,
+                                              LocalDateTime to, Set<LocalDateTime> exclusions, int limit) {
+        List<LocalDateTime> result = new ArrayList<>();
+        Iterator<LocalDateTime> occurrences = iterate(rule, start, from);
+        while (occurrences.hasNext() && result.size() < limit) {
+            LocalDateTime occurrence = occurrences.next();
+            if (!occurrence.isBefore(to)) {
+                break;
+            }
+            if (!occurrence.isBefore(from) && !exclusions.contains(occurrence)) {
+                result.add(occurrence);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * The first occurrence strictly after {@code after} that is not excluded, or null when the series ends.
+     */
+    public static LocalDateTime next(RecurrenceRule rule, LocalDateTime start, LocalDateTime after,
+                                     Set<LocalDateTime> exclusions) {
+        Iterator<LocalDateTime> occurrences = iterate(rule, start, after);
+        while (occurrences.hasNext()) {
+            LocalDateTime occurrence = occurrences.next();
+            if (occurrence.isAfter(after) && !exclusions.contains(occurrence)) {
+                return occurrence;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Whether {@code candidate} is an occurrence of the series, exclusions aside.
+     */
+    public static boolean isOccurrence(RecurrenceRule rule, LocalDateTime start, LocalDateTime candidate) {
+        Iterator<LocalDateTime> occurrences = iterate(rule, start, candidate);
+        while (occurrences.hasNext()) {
+            int cmp = occurrences.next().compareTo(candidate);
+            if (cmp >= 0) {
+                return cmp == 0;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Number of occurrences from {@code start} up to and including {@code through}.
+     */
+    public static int countThrough(RecurrenceRule rule, LocalDateTime start, LocalDateTime through) {
+        int count = 0;
+        Iterator<LocalDateTime> occurrences = iterate(rule, start, start);
+        while (occurrences.hasNext() && !occurrences.next().isAfter(through)) {
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * All occurrences in order, beginning no earlier than the period containing {@code from}
+     * (or at the series start when the rule has a COUNT, which has to be counted from there).
+     */
+    public static Iterator<LocalDateTime> iterate(RecurrenceRule rule, LocalDateTime start, LocalDateTime from) {
+        return new OccurrenceIterator(rule, start, from);
+    }
+    
+    private static final class OccurrenceIterator implements Iterator<LocalDateTime> {
+        
+        private final RecurrenceRule rule;
+        private final LocalDateTime start;
+        private final LocalTime time;
+        private final LocalDate anchor;
+        private long period;
+        private int emitted;
+        private List<LocalDate> pending = Collections.emptyList();
+        private int position;
+        private LocalDateTime nextValue;
+        private boolean done;
+        
+        OccurrenceIterator(RecurrenceRule rule, LocalDateTime start, LocalDateTime from) {
+            this.rule = rule;
+            this.start = start;
+            this.time = start.toLocalTime();
+            this.anchor = periodAnchor(start.toLocalDate());
+            if (rule.count() == null && from != null && from.isAfter(start)) {
+                this.period = unitsBetween(anchor, periodAnchor(from.toLocalDate())) / rule.interval();
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (nextValue == null && !done) {
+                nextValue = advance();
+            }
+            return nextValue != null;
+        }
+        
+        @Override
+        public LocalDateTime next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            LocalDateTime value = nextValue;
+            nextValue = null;
+            return value;
+        }
+        
+        private LocalDateTime advance() {
+            int emptyPeriods = 0;
+            while (true) {
+                while (position < pending.size()) {
+                    LocalDateTime candidate = pending.get(position++).atTime(time);
+                    if (candidate.isBefore(start)) {
+                        continue;
+                    }
+                    if ((rule.until() != null && candidate.isAfter(rule.until()))
+                            || (rule.count() != null && emitted >= rule.count())) {
+                        done = true;
+                        return null;
+                    }
+                    emitted++;
+                    return candidate;
+                }
+                if (emptyPeriods++ > MAX_EMPTY_PERIODS) {
+                    done = true;
+                    return null;
+                }
+                LocalDate periodStart = plusUnits(anchor, period++ * rule.interval());
+                if (rule.until() != null && periodStart.isAfter(rule.until().toLocalDate())) {
+                    done = true;
+                    return null;
+                }
+                pending = candidates(periodStart);
+                position = 0;
+            }
+        }
+        
+        private List<LocalDate> candidates(LocalDate periodStart) {
+            return switch (rule.frequency()) {
+                case DAILY -> matchesFilters(periodStart) ? List.of(periodStart) : List.of();
+                case WEEKLY -> weekCandidates(periodStart);
+                case MONTHLY -> rule.byMonth().isEmpty() || rule.byMonth().contains(periodStart.getMonthValue())
+                        ? monthCandidates(YearMonth.from(periodStart))
+                        : List.of();
+                case YEARLY -> yearCandidates(periodStart.getYear());
+            };
+        }
+        
+        private List<LocalDate> weekCandidates(LocalDate monday) {
+            List<LocalDate> dates = new ArrayList<>(7);
+            for (DayOfWeek day : DayOfWeek.values()) {
+                boolean wanted = rule.byDay().isEmpty()
+                        ? day == start.getDayOfWeek()
+                        : rule.byDay().stream().anyMatch(wd -> wd.day() == day);
+                if (wanted) {
+                    LocalDate date = monday.plusDays(day.ordinal());
+                    if ((rule.byMonth().isEmpty() || rule.byMonth().contains(date.getMonthValue()))
+                            && (rule.byMonthDay().isEmpty() || matchesMonthDay(date))) {
+                        dates.add(date);
+                    }
+                }
+            }
+            return dates;
+        }
+        
+        private List<LocalDate> yearCandidates(int year) {
+            if (rule.byMonth().isEmpty() && rule.byMonthDay().isEmpty() && !rule.byDay().isEmpty()) {
+                // BYDAY ordinals count within the year when no month narrows them
+                return weekdaysIn(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+            }
+            List<Integer> months;
+            if (!rule.byMonth().isEmpty()) {
+                months = new ArrayList<>(new TreeSet<>(rule.byMonth()));
+            } else if (!rule.byMonthDay().isEmpty()) {
+                months = List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+            } else {
+                months = List.of(start.getMonthValue());
+            }
+            List<LocalDate> dates = new ArrayList<>();
+            for (int month : months) {
+                dates.addAll(monthCandidates(YearMonth.of(year, month)));
+            }
+            return dates;
+        }
+        
+        private List<LocalDate> monthCandidates(YearMonth month) {
+            TreeSet<LocalDate> dates = new TreeSet<>();
+            int length = month.lengthOfMonth();
+            if (!rule.byMonthDay().isEmpty()) {
+                for (int day : rule.byMonthDay()) {
+                    int resolved = day > 0 ? day : length + day + 1;
+                    if (resolved >= 1 && resolved <= length) {
+                        dates.add(month.atDay(resolved));
+                    }
+                }
+            }
+            if (!rule.byDay().isEmpty()) {
+                List<LocalDate> weekdays = weekdaysIn(month.atDay(1), month.atEndOfMonth());
+                if (rule.byMonthDay().isEmpty()) {
+                    dates.addAll(weekdays);
+                } else {
+                    dates.retainAll(weekdays);
+                }
+            }
+            if (rule.byMonthDay().isEmpty() && rule.byDay().isEmpty() && start.getDayOfMonth() <= length) {
+                // Months without the start's day (the 31st, Feb 30th) are skipped, as RFC 5545 does
+                dates.add(month.atDay(start.getDayOfMonth()));
+            }
+            return new ArrayList<>(dates);
+        }
+        
+        private List<LocalDate> weekdaysIn(LocalDate first, LocalDate last) {
+            TreeSet<LocalDate> dates = new TreeSet<>();
+            for (RecurrenceRule.WeekdayNum weekday : rule.byDay()) {
+                if (weekday.ordinal() == 0) {
+                    for (LocalDate date = first.with(TemporalAdjusters.nextOrSame(weekday.day()));
+                         !date.isAfter(last); date = date.plusWeeks(1)) {
+                        dates.add(date);
+                    }
+                } else if (weekday.ordinal() > 0) {
+                    LocalDate date = first.with(TemporalAdjusters.nextOrSame(weekday.day()))
+                            .plusWeeks(weekday.ordinal() - 1L);
+                    if (!date.isAfter(last)) {
+                        dates.add(date);
+                    }
+                } else {
+                    LocalDate date = last.with(TemporalAdjusters.previousOrSame(weekday.day()))
+                            .minusWeeks(-weekday.ordinal() - 1L);
+                    if (!date.isBefore(first)) {
+                        dates.add(date);
+                    }
+                }
+            }
+            return new ArrayList<>(dates);
+        }
+        
+        private boolean matchesFilters(LocalDate date) {
+            return (rule.byMonth().isEmpty() || rule.byMonth().contains(date.getMonthValue()))
+                    && (rule.byMonthDay().isEmpty() || matchesMonthDay(date))
+                    && (rule.byDay().isEmpty() || rule.byDay().stream().anyMatch(wd -> wd.day() == date.getDayOfWeek()));
+        }
+        
+        private boolean matchesMonthDay(LocalDate date) {
+            int length = date.lengthOfMonth();
+            for (int day : rule.byMonthDay()) {
+                if ((day > 0 ? day : length + day + 1) == date.getDayOfMonth()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private LocalDate periodAnchor(LocalDate date) {
+            return switch (rule.frequency()) {
+                case DAILY -> date;
+                case WEEKLY -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTHLY -> date.withDayOfMonth(1);
+                case YEARLY -> date.withDayOfYear(1);
+            };
+        }
+        
+        private long unitsBetween(LocalDate from, LocalDate to) {
+            return switch (rule.frequency()) {
+                case DAILY -> ChronoUnit.DAYS.between(from, to);
+                case WEEKLY -> ChronoUnit.WEEKS.between(from, to);
+                case MONTHLY -> ChronoUnit.MONTHS.between(from, to);
+                case YEARLY -> ChronoUnit.YEARS.between(from, to);
+            };
+        }
+        
+        private LocalDate plusUnits(LocalDate date, long units) {
+            return switch (rule.frequency()) {
+                case DAILY -> date.plusDays(units);
+                case WEEKLY -> date.plusWeeks(units);
+                case MONTHLY -> date.plusMonths(units);
+                case YEARLY -> date.plusYears(units);
+            };
+        }
+    }
+}
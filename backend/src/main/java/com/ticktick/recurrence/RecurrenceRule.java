@@ -0,0 +1,292 @@
+package com.ticktick.recurrence;
+
+import com.ticktick.entity.Task;
+import com.ticktick.exception.BadRequestException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * The subset of an RFC 5545 RRULE the app supports: FREQ, INTERVAL, COUNT, UNTIL, BYDAY
+ * (with optional ordinals such as 2MO or -1FR), BYMONTHDAY and BYMONTH. Weeks start on Monday.
+ *
+ * COUNT counts occurrences from the series start; when a recurring task is completed the start
+ * moves forward and the remaining count is carried by {@link #withCount(Integer)}.
+ */
+public record RecurrenceRule(
+        Frequency frequency,
+        int interval,
+        Integer count,
+        LocalDateTime until,
+        List<WeekdayNum> byDay,
+        List<Integer> byMonthDay,
+        List<Integer> byMonth) {
+    
+    private static final DateTimeFormatter UNTIL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter UNTIL_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY, YEARLY
+    }
+    
+    /**
+     * A BYDAY entry; {@code ordinal} is 0 for "every such weekday" and otherwise the 1-based
+     * (or, when negative, from-the-end) position inside the month or year.
+     */
+    public record WeekdayNum(int ordinal, DayOfWeek day) {
+        
+        static WeekdayNum parse(String value) {
+            String code = value.substring(value.length() - 2);
+            String ordinal = value.substring(0, value.length() - 2);
+            int n = ordinal.isEmpty() ? 0 : Integer.parseInt(ordinal.startsWith("+") ? ordinal.substring(1) : ordinal);
+            if (n < -53 || n > 53) {
+                throw new IllegalArgumentException("BYDAY ordinal out of range: " + value);
+            }
+            return new WeekdayNum(n, dayOf(code));
+        }
+        
+        String format() {
+            return (ordinal != 0 ? Integer.toString(ordinal) : "") + codeOf(day);
+        }
+    }
+    
+    public RecurrenceRule {
+        if (frequency == null) {
+            throw new IllegalArgumentException("FREQ is required");
+        }
+        if (interval < 1) {
+            throw new IllegalArgumentException("INTERVAL must be positive");
+        }
+        if (count != null && count < 1) {
+            throw new IllegalArgumentException("COUNT must be positive");
+        }
+        byDay = byDay != null ? List.copyOf(byDay) : List.of();
+        byMonthDay = byMonthDay != null ? List.copyOf(byMonthDay) : List.of();
+        byMonth = byMonth != null ? List.copyOf(byMonth) : List.of();
+    }
+    
+    public static RecurrenceRule parse(String rrule) {
+        if (rrule == null || rrule.isBlank()) {
+            throw new BadRequestException("Recurrence rule is empty");
+        }
+        String value = rrule.trim();
+        if (value.regionMatches(true, 0, "RRULE:", 0, 6)) {
+            value = value.substring(6);
+        }
+        
+        Frequency frequency = null;
+        int interval = 1;
+        Integer count = null;
+        LocalDateTime until = null;
+        List<WeekdayNum> byDay = new ArrayList<>();
+        List<Integer> byMonthDay = new ArrayList<>();
+        List<Integer> byMonth = new ArrayList<>();
+        
+        try {
+            for (String part : value.split(";")) {
+                if (part.isBlank()) {
+                    continue;
+                }
+                int eq = part.indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("Malformed part: " + part);
+                }
+                String name = part.substring(0, eq).trim().toUpperCase(Locale.ROOT);
+                String arg = part.substring(eq + 1).trim().toUpperCase(Locale.ROOT);
+                switch (name) {
+                    case "FREQ" -> frequency = Frequency.valueOf(arg);
+                    case "INTERVAL" -> interval = Integer.parseInt(arg);
+                    case "COUNT" -> count = Integer.parseInt(arg);
+                    case "UNTIL" -> until = parseUntil(arg);
+                    case "BYDAY" -> {
+                        for (String day : arg.split(",")) {
+                            byDay.add(WeekdayNum.parse(day.trim()));
+                        }
+                    }
+                    case "BYMONTHDAY" -> {
+                        for (String day : arg.split(",")) {
+                            int d = Integer.parseInt(day.trim());
+                            if (d == 0 || d < -31 || d > 31) {
+                                throw new IllegalArgumentException("BYMONTHDAY out of range: " + d);
+                            }
+                            byMonthDay.add(d);
+                        }
+                    }
+                    case "BYMONTH" -> {
+                        for (String month : arg.split(",")) {
+                            int m = Integer.parseInt(month.trim());
+                            if (m < 1 || m > 12) {
+                                throw new IllegalArgumentException("BYMONTH out of range: " + m);
+                            }
+                            byMonth.add(m);
+                        }
+                    }
+                    // Unsupported parts (WKST, BYSETPOS, ...) are rejected rather than silently ignored
+                    default -> throw new IllegalArgumentException("Unsupported part: " + name);
+                }
+            }
+            if (count != null && until != null) {
+                throw new IllegalArgumentException("COUNT and UNTIL are mutually exclusive");
+            }
+            return new RecurrenceRule(frequency, interval, count, until, byDay, byMonthDay, byMonth);
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid recurrence rule '" + rrule + "': " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Builds a rule from the legacy recurrence columns. {@code recurrenceDays} has never had a fixed
+     * format, so weekday names ("MO", "MONDAY") and days of the month are both accepted, either as a
+     * JSON array or comma separated. Returns null when the task does not describe a usable series.
+     */
+    public static RecurrenceRule fromLegacy(Task.RecurrenceType type, Integer interval,
+                                            LocalDateTime endDate, String recurrenceDays) {
+        if (type == null) {
+            return null;
+        }
+        int step = interval != null && interval > 0 ? interval : 1;
+        List<WeekdayNum> weekdays = new ArrayList<>();
+        List<Integer> monthDays = new ArrayList<>();
+        if (recurrenceDays != null) {
+            for (String token : recurrenceDays.replaceAll("[\\[\\]\"'\\s]", "").split(",")) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+                if (token.chars().allMatch(Character::isDigit)) {
+                    int day = Integer.parseInt(token);
+                    if (day >= 1 && day <= 31) {
+                        monthDays.add(day);
+                    }
+                } else {
+                    DayOfWeek day = legacyDay(token);
+                    if (day != null) {
+                        weekdays.add(new WeekdayNum(0, day));
+                    }
+                }
+            }
+        }
+        
+        Frequency frequency = switch (type) {
+            case DAILY -> Frequency.DAILY;
+            case WEEKLY -> Frequency.WEEKLY;
+            case MONTHLY -> Frequency.MONTHLY;
+            case YEARLY -> Frequency.YEARLY;
+            // CUSTOM only ever meant "on these days"
+            case CUSTOM -> !weekdays.isEmpty() ? Frequency.WEEKLY : !monthDays.isEmpty() ? Frequency.MONTHLY : null;
+        };
+        if (frequency == null) {
+            return null;
+        }
+        return new RecurrenceRule(frequency, step, null, endDate,
+                frequency == Frequency.WEEKLY ? weekdays : List.of(),
+                frequency == Frequency.MONTHLY ? monthDays : List.of(),
+                List.of());
+    }
+    
+    /**
+     * The rule a task recurs by: its RRULE when set, otherwise one derived from the legacy columns.
+     */
+    public static RecurrenceRule of(Task task) {
+        if (!Boolean.TRUE.equals(task.getIsRecurring())) {
+            return null;
+        }
+        if (task.getRecurrenceRule() != null && !task.getRecurrenceRule().isBlank()) {
+            return parse(task.getRecurrenceRule());
+        }
+        return fromLegacy(task.getRecurrenceType(), task.getRecurrenceInterval(),
+                task.getRecurrenceEndDate(), task.getRecurrenceDays());
+    }
+    
+    public RecurrenceRule withCount(Integer remaining) {
+        return new RecurrenceRule(frequency, interval, remaining, until, byDay, byMonthDay, byMonth);
+    }
+    
+    public Task.RecurrenceType toRecurrenceType() {
+        return Task.RecurrenceType.valueOf(frequency.name());
+    }
+    
+    public String format() {
+        StringJoiner parts = new StringJoiner(";");
+        parts.add("FREQ=" + frequency);
+        if (interval != 1) {
+            parts.add("INTERVAL=" + interval);
+        }
+        if (count != null) {
+            parts.add("COUNT=" + count);
+        }
+        if (until != null) {
+            parts.add("UNTIL=" + UNTIL_DATE_TIME.format(until));
+        }
+        if (!byDay.isEmpty()) {
+            StringJoiner days = new StringJoiner(",");
+            byDay.forEach(day -> days.add(day.format()));
+            parts.add("BYDAY=" + days);
+        }
+        if (!byMonthDay.isEmpty()) {
+            parts.add("BYMONTHDAY=" + join(byMonthDay));
+        }
+        if (!byMonth.isEmpty()) {
+            parts.add("BYMONTH=" + join(byMonth));
+        }
+        return parts.toString();
+    }
+    
+    @Override
+    public String toString() {
+        return format();
+    }
+    
+    private static LocalDateTime parseUntil(String value) {
+        // Times are treated as local like every other date in the app; a trailing Z is tolerated
+        String local = value.endsWith("Z") ? value.substring(0, value.length() - 1) : value;
+        if (local.length() == 8) {
+            return LocalDate.parse(local, UNTIL_DATE).atTime(LocalTime.MAX);
+        }
+        return LocalDateTime.parse(local, UNTIL_DATE_TIME);
+    }
+    
+    private static String join(List<Integer> values) {
+        StringJoiner joiner = new StringJoiner(",");
+        values.forEach(value -> joiner.add(value.toString()));
+        return joiner.toString();
+    }
+    
+    private static DayOfWeek dayOf(String code) {
+        return switch (code) {
+            case "MO" -> DayOfWeek.MONDAY;
+            case "TU" -> DayOfWeek.TUESDAY;
+            case "WE" -> DayOfWeek.WEDNESDAY;
+            case "TH" -> DayOfWeek.THURSDAY;
+            case "FR" -> DayOfWeek.FRIDAY;
+            case "SA" -> DayOfWeek.SATURDAY;
+            case "SU" -> DayOfWeek.SUNDAY;
+            default -> throw new IllegalArgumentException("Unknown weekday: " + code);
+        };
+    }
+    
+    private static String codeOf(DayOfWeek day) {
+        return day.name().substring(0, 2);
+    }
+    
+    private static DayOfWeek legacyDay(String token) {
+        String upper = token.toUpperCase(Locale.ROOT);
+        if (upper.length() < 2) {
+            return null;
+        }
+        for (DayOfWeek day : DayOfWeek.values()) {
+            // "TU", "TUE" and "TUESDAY" all resolve; two letters are enough to be unambiguous
+            if (day.name().startsWith(upper)) {
+                return day;
+            }
+        }
+        return null;
+    }
+}
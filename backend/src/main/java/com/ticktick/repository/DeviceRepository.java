@@ -0,0 +1,39 @@
+package com.ticktick.repository;
+
+import com.ticktick.entity.Device;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DeviceRepository extends JpaRepository<Device, Long> {
+    
+    Optional<Device> findByToken(String token);
+    
+    Optional<Device> findByIdAndUserId(Long id, Long userId);
+    
+    List<Device> findByUserIdOrderByLastSeenAtDesc(Long userId);
+    
+    @Query("SELECT d.user.id AS userId, d.token AS token FROM Device d WHERE d.user.id IN :userIds")
+    List<DeviceToken> findTokensByUserIdIn(@Param("userIds") Collection<Long> userIds);
+    
+    @Modifying
+    @Query("DELETE FROM Device d WHERE d.token IN :tokens")
+    int deleteByTokenIn(@Param("tokens") Collection<String> tokens);
+    
+    @Modifying
+    @Query("DELETE FROM Device d WHERE d.lastSeenAt < :cutoff")
+    int deleteNotSeenSince(@Param("cutoff") LocalDateTime cutoff);
+    
+    interface DeviceToken {
+        Long getUserId();
+        String getToken();
+    }
+}
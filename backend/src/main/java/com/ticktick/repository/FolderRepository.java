@@ -2,16 +2,30 @@ package com.ticktick.repository;
 
 import com.ticktick.entity.Folder;
 import com.ticktick.entity.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface FolderRepository extends JpaRepository<Folder, Long> {
     
     List<Folder> findByUserOrderBySortOrderAsc(User user);
     
+    List<Folder> findByUserIdOrderBySortOrderAsc(Long userId);
+    
     Optional<Folder> findByIdAndUser(Long id, User user);
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT f FROM Folder f WHERE f.user.id = :userId ORDER BY f.id")
+    Stream<Folder> streamByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,46 @@
+package com.ticktick.repository;
+
+import com.ticktick.entity.HabitCompletionYear;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+@Repository
+public interface HabitCompletionYearRepository extends JpaRepository<HabitCompletionYear, Long> {
+    
+    // Lets concurrent first check-ins of a year race safely; the row is then locked and updated
+    @Modifying
+    @Query(value = "INSERT INTO habit_completion_years (habit_id, year, bits, completed_count, updated_at) " +
+                   "VALUES (:habitId, :year, decode(repeat('00', 46), 'hex'), 0, now()) " +
+                   "ON CONFLICT (habit_id, year) DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(@Param("habitId") Long habitId, @Param("year") int year);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT y FROM HabitCompletionYear y WHERE y.habit.id = :habitId AND y.year = :year")
+    Optional<HabitCompletionYear> lockByHabitIdAndYear(@Param("habitId") Long habitId, @Param("year") int year);
+    
+    List<HabitCompletionYear> findByHabitIdOrderByYearAsc(Long habitId);
+    
+    @Query("SELECT y FROM HabitCompletionYear y WHERE y.habit.id IN :habitIds AND y.year BETWEEN :fromYear AND :toYear")
+    List<HabitCompletionYear> findByHabitIdsAndYears(@Param("habitIds") Collection<Long> habitIds,
+                                                     @Param("fromYear") int fromYear,
+                                                     @Param("toYear") int toYear);
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT y FROM HabitCompletionYear y WHERE y.habit.user.id = :userId ORDER BY y.habit.id, y.year")
+    Stream<HabitCompletionYear> streamByUserId(@Param("userId") Long userId);
+}
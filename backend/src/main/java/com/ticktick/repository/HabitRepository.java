@@ -2,12 +2,32 @@ package com.ticktick.repository;
 
 import com.ticktick.entity.Habit;
 import com.ticktick.entity.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface HabitRepository extends JpaRepository<Habit, Long> {
     List<Habit> findByUserOrderBySortOrderAsc(User user);
+    
+    // Serializes toggles of one habit, so its streak runs are adjusted one day at a time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Habit h WHERE h.id = :id")
+    Optional<Habit> lockById(@Param("id") Long id);
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT h FROM Habit h WHERE h.user.id = :userId ORDER BY h.id")
+    Stream<Habit> streamByUserId(@Param("userId") Long userId);
 }
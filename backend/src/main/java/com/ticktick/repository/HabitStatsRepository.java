@@ -0,0 +1,14 @@
+package com.ticktick.repository;
+
+import com.ticktick.entity.HabitStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface HabitStatsRepository extends JpaRepository<HabitStats, Long> {
+    
+    List<HabitStats> findByHabitIdIn(Collection<Long> habitIds);
+}
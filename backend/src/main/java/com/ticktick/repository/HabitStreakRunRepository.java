@@ -0,0 +1,38 @@
+package com.ticktick.repository;
+
+import com.ticktick.entity.HabitStreakRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HabitStreakRunRepository extends JpaRepository<HabitStreakRun, Long> {
+    
+    Optional<HabitStreakRun> findByHabitIdAndEndDate(Long habitId, LocalDate endDate);
+    
+    Optional<HabitStreakRun> findByHabitIdAndStartDate(Long habitId, LocalDate startDate);
+    
+    // The first run ending on or after the date; it contains the date when its start is not after it
+    Optional<HabitStreakRun> findFirstByHabitIdAndEndDateGreaterThanEqualOrderByEndDateAsc(Long habitId, LocalDate date);
+    
+    @Query("SELECT coalesce(max(r.days), 0) FROM HabitStreakRun r WHERE r.habit.id = :habitId")
+    int findLongestDays(@Param("habitId") Long habitId);
+    
+    // Runs still alive today: they reach at least yesterday and have started by today
+    @Query("SELECT r FROM HabitStreakRun r WHERE r.habit.id IN :habitIds " +
+           "AND r.startDate <= :today AND r.endDate >= :yesterday")
+    List<HabitStreakRun> findCurrent(@Param("habitIds") Collection<Long> habitIds,
+                                     @Param("today") LocalDate today,
+                                     @Param("yesterday") LocalDate yesterday);
+    
+    @Modifying
+    @Query("DELETE FROM HabitStreakRun r WHERE r.habit.id = :habitId")
+    void deleteByHabitId(@Param("habitId") Long habitId);
+}
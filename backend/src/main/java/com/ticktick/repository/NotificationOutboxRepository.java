@@ -0,0 +1,64 @@
+package com.ticktick.repository;
+
+import com.ticktick.entity.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+    
+    // SENDING rows past their lease belong to a worker that died and are retried
+    @Query(value = "SELECT * FROM notification_outbox WHERE channel = :channel " +
+                   "AND status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<NotificationOutbox> lockDue(@Param("channel") String channel,
+                                     @Param("now") LocalDateTime now,
+                                     @Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE NotificationOutbox n SET n.status = :status, n.nextAttemptAt = :leaseUntil WHERE n.id IN :ids")
+    int markSending(@Param("ids") Collection<Long> ids,
+                    @Param("status") NotificationOutbox.Status status,
+                    @Param("leaseUntil") LocalDateTime leaseUntil);
+    
+    // The lease expiry doubles as the claim's token: a row re-claimed after it lapsed no longer matches
+    @Query(value = "SELECT id FROM notification_outbox WHERE id IN (:ids) " +
+                   "AND status = 'SENDING' AND next_attempt_at = :leaseUntil FOR UPDATE", nativeQuery = true)
+    List<Long> lockLeased(@Param("ids") Collection<Long> ids,
+                          @Param("leaseUntil") LocalDateTime leaseUntil);
+    
+    @Modifying
+    @Query("UPDATE NotificationOutbox n SET n.status = :status, n.sentAt = :sentAt, n.attempts = n.attempts + 1 WHERE n.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids,
+                 @Param("status") NotificationOutbox.Status status,
+                 @Param("sentAt") LocalDateTime sentAt);
+    
+    @Modifying
+    @Query("UPDATE NotificationOutbox n SET n.status = :status, n.attempts = n.attempts + 1, " +
+           "n.nextAttemptAt = :nextAttemptAt, n.lastError = :error WHERE n.id = :id")
+    int markFailed(@Param("id") Long id,
+                   @Param("status") NotificationOutbox.Status status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error);
+    
+    @Query("SELECT n.channel AS channel, COUNT(n) AS depth, MIN(n.createdAt) AS oldest FROM NotificationOutbox n " +
+           "WHERE n.status IN :statuses GROUP BY n.channel")
+    List<QueueStats> findQueueStats(@Param("statuses") Collection<NotificationOutbox.Status> statuses);
+    
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox n WHERE n.status = :status AND n.sentAt < :cutoff")
+    int deleteSentBefore(@Param("status") NotificationOutbox.Status status, @Param("cutoff") LocalDateTime cutoff);
+    
+    interface QueueStats {
+        NotificationOutbox.Channel getChannel();
+        Long getDepth();
+        LocalDateTime getOldest();
+    }
+}
@@ -1,19 +1,54 @@
 package com.ticktick.repository;
 
 import com.ticktick.entity.Reminder;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface ReminderRepository extends JpaRepository<Reminder, Long> {
     
-    @Query("SELECT r FROM Reminder r WHERE r.isSent = false AND r.remindAt <= :now")
-    List<Reminder> findPendingReminders(@Param("now") LocalDateTime now);
-    
     List<Reminder> findByTaskId(Long taskId);
+    
+    @Query("SELECT r.id AS id, r.remindAt AS remindAt FROM Reminder r WHERE r.isSent = false AND r.remindAt <= :until")
+    List<PendingReminder> findPendingSchedule(@Param("until") LocalDateTime until);
+    
+    // Locks only the reminder rows; rows another node already holds are skipped, not waited on
+    @Query(value = "SELECT r.id FROM reminders r WHERE r.id IN (:ids) AND r.is_sent = false " +
+                   "ORDER BY r.remind_at FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockUnsent(@Param("ids") Collection<Long> ids);
+    
+    // Lookahead for digests: the users' other reminders due soon, locked the same way
+    @Query(value = "SELECT r.id FROM reminders r JOIN tasks t ON t.id = r.task_id " +
+                   "WHERE t.user_id IN (:userIds) AND r.is_sent = false AND r.remind_at <= :until " +
+                   "FOR UPDATE OF r SKIP LOCKED", nativeQuery = true)
+    List<Long> lockUnsentForUsersDueBefore(@Param("userIds") Collection<Long> userIds, @Param("until") LocalDateTime until);
+    
+    @Query("SELECT r FROM Reminder r JOIN FETCH r.task t JOIN FETCH t.user WHERE r.id IN :ids")
+    List<Reminder> findWithTaskAndUser(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Reminder r SET r.isSent = true, r.sentAt = :sentAt WHERE r.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT r FROM Reminder r WHERE r.task.user.id = :userId ORDER BY r.id")
+    Stream<Reminder> streamByUserId(@Param("userId") Long userId);
+    
+    interface PendingReminder {
+        Long getId();
+        LocalDateTime getRemindAt();
+    }
 }
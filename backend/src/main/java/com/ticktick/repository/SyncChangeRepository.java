@@ -0,0 +1,34 @@
+package com.ticktick.repository;
+
+import com.ticktick.entity.SyncChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SyncChangeRepository extends JpaRepository<SyncChange, Long> {
+    
+    @Modifying
+    @Query(value = "INSERT INTO sync_changes (user_id, entity_type, entity_id, version, deleted, changed_at) " +
+                   "VALUES (:userId, :entityType, :entityId, :version, :deleted, :changedAt) " +
+                   "ON CONFLICT (user_id, entity_type, entity_id) DO UPDATE SET version = EXCLUDED.version, " +
+                   "deleted = EXCLUDED.deleted, changed_at = EXCLUDED.changed_at",
+           nativeQuery = true)
+    void upsert(@Param("userId") Long userId,
+                @Param("entityType") String entityType,
+                @Param("entityId") Long entityId,
+                @Param("version") Long version,
+                @Param("deleted") boolean deleted,
+                @Param("changedAt") LocalDateTime changedAt);
+    
+    List<SyncChange> findByUserIdAndVersionGreaterThanOrderByVersionAsc(Long userId, Long version);
+    
+    @Modifying
+    @Query("DELETE FROM SyncChange c WHERE c.deleted = true AND c.changedAt < :cutoff")
+    int deleteTombstonesBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,28 @@
+package com.ticktick.repository;
+
+import com.ticktick.entity.SyncVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SyncVersionRepository extends JpaRepository<SyncVersion, Long> {
+    
+    @Query(value = "INSERT INTO sync_versions (user_id, version, tombstone_floor) VALUES (:userId, 1, 0) " +
+                   "ON CONFLICT (user_id) DO UPDATE SET version = sync_versions.version + 1 " +
+                   "RETURNING version",
+           nativeQuery = true)
+    Long nextVersion(@Param("userId") Long userId);
+    
+    @Modifying
+    @Query(value = "UPDATE sync_versions v SET tombstone_floor = p.max_version " +
+                   "FROM (SELECT user_id, MAX(version) AS max_version FROM sync_changes " +
+                   "WHERE deleted = true AND changed_at < :cutoff GROUP BY user_id) p " +
+                   "WHERE v.user_id = p.user_id AND v.tombstone_floor < p.max_version",
+           nativeQuery = true)
+    int raiseTombstoneFloors(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,18 +2,35 @@ package com.ticktick.repository;
 
 import com.ticktick.entity.Tag;
 import com.ticktick.entity.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface TagRepository extends JpaRepository<Tag, Long> {
     
     List<Tag> findByUser(User user);
     
+    List<Tag> findByUserIdOrderByNameAsc(Long userId);
+    
     Optional<Tag> findByIdAndUser(Long id, User user);
     
     Optional<Tag> findByNameAndUser(String name, User user);
+    
+    @Query("SELECT t.id, t.name FROM Tag t WHERE t.user.id = :userId")
+    List<Object[]> findIdAndNameByUserId(@Param("userId") Long userId);
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT t FROM Tag t WHERE t.user.id = :userId ORDER BY t.id")
+    Stream<Tag> streamByUserId(@Param("userId") Long userId);
 }
@@ -2,20 +2,40 @@ package com.ticktick.repository;
 
 import com.ticktick.entity.TaskList;
 import com.ticktick.entity.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface TaskListRepository extends JpaRepository<TaskList, Long> {
     
     List<TaskList> findByUserOrderBySortOrderAsc(User user);
     
+    // Folder fetched along, since every list DTO carries its folder's name
+    @EntityGraph(attributePaths = "folder")
+    List<TaskList> findByUserIdOrderBySortOrderAsc(Long userId);
+    
     List<TaskList> findByUserAndFolderIdOrderBySortOrderAsc(User user, Long folderId);
     
     List<TaskList> findByUserAndFolderIsNullOrderBySortOrderAsc(User user);
     
     Optional<TaskList> findByIdAndUser(Long id, User user);
+    
+    @Query("SELECT l.id, l.name FROM TaskList l WHERE l.user.id = :userId")
+    List<Object[]> findIdAndNameByUserId(@Param("userId") Long userId);
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT l FROM TaskList l WHERE l.user.id = :userId ORDER BY l.id")
+    Stream<TaskList> streamByUserId(@Param("userId") Long userId);
 }
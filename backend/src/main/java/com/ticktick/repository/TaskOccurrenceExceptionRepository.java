@@ -0,0 +1,27 @@
+package com.ticktick.repository;
+
+import com.ticktick.entity.TaskOccurrenceException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TaskOccurrenceExceptionRepository extends JpaRepository<TaskOccurrenceException, Long> {
+    
+    Optional<TaskOccurrenceException> findByTaskIdAndOriginalStart(Long taskId, LocalDateTime originalStart);
+    
+    @Query("SELECT e.originalStart FROM TaskOccurrenceException e WHERE e.task.id = :taskId AND e.originalStart > :after")
+    List<LocalDateTime> findStartsAfter(@Param("taskId") Long taskId, @Param("after") LocalDateTime after);
+    
+    @Query("SELECT e FROM TaskOccurrenceException e LEFT JOIN FETCH e.materializedTask " +
+           "WHERE e.task.id IN :taskIds AND e.originalStart >= :from AND e.originalStart < :to")
+    List<TaskOccurrenceException> findInRange(@Param("taskIds") Collection<Long> taskIds,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to);
+}
@@ -2,14 +2,24 @@ package com.ticktick.repository;
 
 import com.ticktick.entity.Task;
 import com.ticktick.entity.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long>, JpaSpecificationExecutor<Task> {
@@ -28,16 +38,268 @@ public interface TaskRepository extends JpaRepository<Task, Long>, JpaSpecificat
     @Query("SELECT t FROM Task t WHERE t.user = :user AND t.status != 'COMPLETED' AND t.dueDate < :now")
     List<Task> findOverdueTasks(@Param("user") User user, @Param("now") LocalDateTime now);
     
-    @Query("SELECT t FROM Task t WHERE t.user = :user AND " +
-           "(LOWER(t.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "LOWER(t.description) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "LOWER(t.notes) LIKE LOWER(CONCAT('%', :query, '%')))")
-    List<Task> searchTasks(@Param("user") User user, @Param("query") String query);
+    // Sidebar badges: open tasks due today, overdue, and due within the next seven days (today included)
+    @Query(value = "SELECT count(*) FILTER (WHERE t.due_date >= :todayStart AND t.due_date < :tomorrowStart) AS today, " +
+           "count(*) FILTER (WHERE t.due_date < :now) AS overdue, " +
+           "count(*) FILTER (WHERE t.due_date >= :todayStart) AS \"next7Days\" " +
+           "FROM tasks t WHERE t.user_id = :userId AND t.status <> 'COMPLETED' AND t.due_date < :weekEnd",
+           nativeQuery = true)
+    SmartListCounts countSmartLists(@Param("userId") Long userId,
+                                    @Param("now") LocalDateTime now,
+                                    @Param("todayStart") LocalDateTime todayStart,
+                                    @Param("tomorrowStart") LocalDateTime tomorrowStart,
+                                    @Param("weekEnd") LocalDateTime weekEnd);
+    
+    // Full-text match on the generated search_vector column, also on word prefixes so partial words match,
+    // with trigram similarity and substring match on titles for typos and fragments. All are GIN indexed,
+    // see DatabaseIndexInitializer. :prefixQuery and :titlePattern come from prefixQuery and titlePattern.
+    String SEARCH_MATCH = "(t.search_vector @@ websearch_to_tsquery('simple', :query) " +
+            "OR t.search_vector @@ to_tsquery('simple', :prefixQuery) " +
+            "OR t.title % :query OR t.title ILIKE :titlePattern) ";
+    
+    @Query(value = "SELECT t.* FROM tasks t WHERE t.user_id = :userId AND " + SEARCH_MATCH +
+           "ORDER BY t.sort_order, t.id",
+           nativeQuery = true)
+    List<Task> searchTasks(@Param("userId") Long userId,
+                           @Param("query") String query,
+                           @Param("prefixQuery") String prefixQuery,
+                           @Param("titlePattern") String titlePattern);
     
     @Query("SELECT t FROM Task t JOIN t.tags tag WHERE t.user = :user AND tag.id = :tagId")
     List<Task> findByUserAndTagId(@Param("user") User user, @Param("tagId") Long tagId);
     
     List<Task> findByUserAndIsRecurringTrue(User user);
     
-    Long countByUserAndTaskListId(User user, Long taskListId);
+    // Series that can have occurrences before :end; a completed master means the series has ended
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId AND t.isRecurring = true " +
+           "AND t.dueDate IS NOT NULL AND t.dueDate < :end AND t.completedAt IS NULL")
+    List<Task> findActiveSeriesStartingBefore(@Param("userId") Long userId, @Param("end") LocalDateTime end);
+    
+    // One grouped scan for any number of lists; lists without tasks are absent from the result
+    @Query("SELECT t.taskList.id AS taskListId, " +
+           "sum(CASE WHEN t.status <> :completed THEN 1 ELSE 0 END) AS open, " +
+           "sum(CASE WHEN t.status = :completed THEN 1 ELSE 0 END) AS completed " +
+           "FROM Task t WHERE t.taskList.id IN :taskListIds AND t.user = t.taskList.user " +
+           "GROUP BY t.taskList.id")
+    List<ListCount> countByTaskListIds(@Param("taskListIds") Collection<Long> taskListIds,
+                                       @Param("completed") Task.Status completed);
+    
+    // Keyset pages ordered by (sortOrder, id); the redundant ">=" bound lets the planner seek the index
+    @Query("SELECT t FROM Task t WHERE t.user = :user AND t.parentTask IS NULL AND " +
+           "t.sortOrder >= :sortOrder AND (t.sortOrder > :sortOrder OR t.id > :id) " +
+           "ORDER BY t.sortOrder ASC, t.id ASC")
+    List<Task> findTopLevelPage(@Param("user") User user,
+                                @Param("sortOrder") Integer sortOrder,
+                                @Param("id") Long id,
+                                Pageable pageable);
+    
+    @Query("SELECT t FROM Task t WHERE t.user = :user AND t.taskList.id = :taskListId AND " +
+           "t.sortOrder >= :sortOrder AND (t.sortOrder > :sortOrder OR t.id > :id) " +
+           "ORDER BY t.sortOrder ASC, t.id ASC")
+    List<Task> findByTaskListPage(@Param("user") User user,
+                                  @Param("taskListId") Long taskListId,
+                                  @Param("sortOrder") Integer sortOrder,
+                                  @Param("id") Long id,
+                                  Pageable pageable);
+    
+    @Query(value = "SELECT t.* FROM tasks t WHERE t.user_id = :userId AND " + SEARCH_MATCH +
+           "AND (t.sort_order, t.id) > (:sortOrder, :id) ORDER BY t.sort_order, t.id LIMIT :limit",
+           nativeQuery = true)
+    List<Task> searchTasksPage(@Param("userId") Long userId,
+                               @Param("query") String query,
+                               @Param("prefixQuery") String prefixQuery,
+                               @Param("titlePattern") String titlePattern,
+                               @Param("sortOrder") Integer sortOrder,
+                               @Param("id") Long id,
+                               @Param("limit") int limit);
+    
+    // Summary projections: only the columns list views render, tags aggregated in the same statement
+    String SUMMARY_SELECT = "SELECT t.id AS id, t.title AS title, t.priority AS priority, t.status AS status, " +
+            "t.due_date AS \"dueDate\", t.task_list_id AS \"taskListId\", t.sort_order AS \"sortOrder\", " +
+            "string_agg(CAST(tt.tag_id AS varchar), ',') AS \"tagIds\" " +
+            "FROM tasks t LEFT JOIN task_tags tt ON tt.task_id = t.id ";
+    
+    String SUMMARY_KEYSET = "AND (t.sort_order, t.id) > (:sortOrder, :id) " +
+            "GROUP BY t.id ORDER BY t.sort_order, t.id LIMIT :limit";
+    
+    @Query(value = SUMMARY_SELECT + "WHERE t.user_id = :userId AND t.parent_task_id IS NULL " + SUMMARY_KEYSET,
+           nativeQuery = true)
+    List<TaskSummary> findTopLevelSummaries(@Param("userId") Long userId,
+                                            @Param("sortOrder") Integer sortOrder,
+                                            @Param("id") Long id,
+                                            @Param("limit") int limit);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE t.user_id = :userId AND t.task_list_id = :taskListId " + SUMMARY_KEYSET,
+           nativeQuery = true)
+    List<TaskSummary> findSummariesByTaskList(@Param("userId") Long userId,
+                                              @Param("taskListId") Long taskListId,
+                                              @Param("sortOrder") Integer sortOrder,
+                                              @Param("id") Long id,
+                                              @Param("limit") int limit);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE t.user_id = :userId AND " + SEARCH_MATCH + SUMMARY_KEYSET,
+           nativeQuery = true)
+    List<TaskSummary> searchSummaries(@Param("userId") Long userId,
+                                      @Param("query") String query,
+                                      @Param("prefixQuery") String prefixQuery,
+                                      @Param("titlePattern") String titlePattern,
+                                      @Param("sortOrder") Integer sortOrder,
+                                      @Param("id") Long id,
+                                      @Param("limit") int limit);
+    
+    @Query("SELECT t.id, t.title FROM Task t WHERE t.user.id = :userId")
+    List<Object[]> findIdAndTitleByUserId(@Param("userId") Long userId);
+    
+    // Fetch plan queries: each initializes one collection for a whole set of tasks at once
+    @Query("SELECT DISTINCT t FROM Task t LEFT JOIN FETCH t.tags WHERE t.id IN :ids")
+    List<Task> fetchTagsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT DISTINCT t FROM Task t LEFT JOIN FETCH t.reminders WHERE t.id IN :ids")
+    List<Task> fetchRemindersByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT DISTINCT t FROM Task t LEFT JOIN FETCH t.attachments WHERE t.id IN :ids")
+    List<Task> fetchAttachmentsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT DISTINCT t FROM Task t LEFT JOIN FETCH t.subtasks WHERE t.id IN :ids")
+    List<Task> fetchSubtasksByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Ranked search: the inner query ranks and pages on index data, headlines are only built for the returned page
+    @Query(value = "SELECT t.id AS id, t.title AS title, t.priority AS priority, t.status AS status, " +
+           "t.due_date AS \"dueDate\", t.task_list_id AS \"taskListId\", m.rank AS rank, " +
+           "ts_headline('simple', t.title, m.q, 'StartSel=<mark>, StopSel=</mark>, HighlightAll=true') " +
+           "AS \"titleHighlight\", " +
+           "ts_headline('simple', coalesce(t.description, '') || ' ' || coalesce(t.notes, ''), m.q, " +
+           "'StartSel=<mark>, StopSel=</mark>, MaxFragments=2, MaxWords=20, MinWords=5') AS snippet " +
+           "FROM (SELECT t.id AS id, q, " +
+           "ts_rank_cd(t.search_vector, q) + similarity(t.title, :query) AS rank " +
+           "FROM tasks t, (websearch_to_tsquery('simple', :query) || to_tsquery('simple', :prefixQuery)) q " +
+           "WHERE t.user_id = :userId AND " + SEARCH_MATCH +
+           "ORDER BY rank DESC, t.id DESC LIMIT :limit OFFSET :offset) m " +
+           "JOIN tasks t ON t.id = m.id " +
+           "ORDER BY m.rank DESC, t.id DESC",
+           nativeQuery = true)
+    List<TaskSearchHit> searchRanked(@Param("userId") Long userId,
+                                     @Param("query") String query,
+                                     @Param("prefixQuery") String prefixQuery,
+                                     @Param("titlePattern") String titlePattern,
+                                     @Param("limit") int limit,
+                                     @Param("offset") long offset);
+    
+    /**
+     * Every word of a search as a prefix, "proj rev" becoming {@code proj:* & rev:*}. Excluded words
+     * ("-word") and OR are left to the full-text match; an empty result matches nothing.
+     */
+    static String prefixQuery(String query) {
+        StringJoiner terms = new StringJoiner(" & ");
+        for (String token : query.trim().split("\\s+")) {
+            if (token.startsWith("-") || token.equalsIgnoreCase("or")) {
+                continue;
+            }
+            for (String word : token.split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty()) {
+                    terms.add(word + ":*");
+                }
+            }
+        }
+        return terms.toString();
+    }
+    
+    // Substring match on titles, as the search before full-text did; LIKE wildcards in the query are literal
+    static String titlePattern(String query) {
+        return "%" + query.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+    
+    // Calendar window overlap on the generated [startDate, dueDate] range, served by a GiST index
+    // on (user_id, active_range), see DatabaseIndexInitializer
+    String WINDOW_OVERLAP = "t.user_id = :userId AND " +
+            "t.active_range && tsrange(CAST(:from AS timestamp), CAST(:to AS timestamp), '[)') ";
+    
+    @Query(value = "SELECT t.id AS id, t.title AS title, t.priority AS priority, t.status AS status, " +
+           "t.start_date AS \"startDate\", t.due_date AS \"dueDate\", t.all_day AS \"allDay\", " +
+           "t.is_recurring AS \"isRecurring\", t.task_list_id AS \"taskListId\", " +
+           "t.parent_task_id AS \"parentTaskId\" " +
+           "FROM tasks t WHERE " + WINDOW_OVERLAP +
+           "ORDER BY lower(t.active_range), t.id LIMIT :limit",
+           nativeQuery = true)
+    List<CalendarTask> findInWindow(@Param("userId") Long userId,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to,
+                                    @Param("limit") int limit);
+    
+    // One index scan for the window; each task is spread over the days it covers inside it
+    @Query(value = "SELECT CAST(d.day AS date) AS date, count(*) AS total, " +
+           "count(*) FILTER (WHERE t.status = 'COMPLETED') AS completed " +
+           "FROM tasks t CROSS JOIN LATERAL generate_series(" +
+           "date_trunc('day', greatest(lower(t.active_range), CAST(:from AS timestamp))), " +
+           "least(upper(t.active_range), CAST(:to AS timestamp) - interval '1 microsecond'), " +
+           "interval '1 day') AS d(day) " +
+           "WHERE " + WINDOW_OVERLAP +
+           "GROUP BY 1 ORDER BY 1",
+           nativeQuery = true)
+    List<DayCount> countByDayInWindow(@Param("userId") Long userId,
+                                      @Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to);
+    
+    // Forward-only cursors for exports; callers must consume them inside a transaction
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId ORDER BY t.id")
+    Stream<Task> streamByUserId(@Param("userId") Long userId);
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t.id, tag.id FROM Task t JOIN t.tags tag WHERE t.user.id = :userId ORDER BY t.id")
+    Stream<Object[]> streamTagLinksByUserId(@Param("userId") Long userId);
+    
+    interface TaskSearchHit {
+        Long getId();
+        String getTitle();
+        Task.Priority getPriority();
+        Task.Status getStatus();
+        LocalDateTime getDueDate();
+        Long getTaskListId();
+        Double getRank();
+        String getTitleHighlight();
+        String getSnippet();
+    }
+    
+    interface CalendarTask {
+        Long getId();
+        String getTitle();
+        Task.Priority getPriority();
+        Task.Status getStatus();
+        LocalDateTime getStartDate();
+        LocalDateTime getDueDate();
+        Boolean getAllDay();
+        Boolean getIsRecurring();
+        Long getTaskListId();
+        Long getParentTaskId();
+    }
+    
+    interface SmartListCounts {
+        Long getToday();
+        Long getOverdue();
+        Long getNext7Days();
+    }
+    
+    interface ListCount {
+        Long getTaskListId();
+        Long getOpen();
+        Long getCompleted();
+    }
+    
+    interface DayCount {
+        LocalDate getDate();
+        Long getTotal();
+        Long getCompleted();
+    }
+    
+    interface TaskSummary {
+        Long getId();
+        String getTitle();
+        Task.Priority getPriority();
+        Task.Status getStatus();
+        LocalDateTime getDueDate();
+        Long getTaskListId();
+        Integer getSortOrder();
+        String getTagIds(); // comma separated, null when the task has no tags
+    }
 }
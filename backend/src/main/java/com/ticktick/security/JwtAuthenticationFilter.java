@@ -1,5 +1,6 @@
 package com.ticktick.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +22,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtTokenProvider tokenProvider;
     private final CustomUserDetailsService customUserDetailsService;
+    private final boolean statelessAuthentication;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
@@ -29,9 +31,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                Long userId = tokenProvider.getUserIdFromToken(jwt);
-                UserDetails userDetails = customUserDetailsService.loadUserById(userId);
+            Claims claims = StringUtils.hasText(jwt) ? tokenProvider.parseToken(jwt) : null;
+            
+            if (claims != null) {
+                // Tokens carrying the principal need no database lookup; older tokens fall back to loading the user
+                UserDetails userDetails = statelessAuthentication ? tokenProvider.getPrincipalFromClaims(claims) : null;
+                if (userDetails == null) {
+                    userDetails = customUserDetailsService.loadUserById(Long.parseLong(claims.getSubject()));
+                }
                 
                 UsernamePasswordAuthenticationToken authentication = 
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
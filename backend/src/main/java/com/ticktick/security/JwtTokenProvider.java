@@ -6,16 +6,26 @@ import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class JwtTokenProvider {
     
+    private static final String EMAIL_CLAIM = "email";
+    private static final String ROLES_CLAIM = "roles";
+    
     @Value("${app.jwt.secret}")
     private String jwtSecret;
     
@@ -25,16 +35,52 @@ public class JwtTokenProvider {
     @Value("${app.jwt.refresh-expiration}")
     private long refreshExpiration;
     
+    @Value("${app.jwt.verified-cache.ttl:60000}")
+    private long verifiedCacheTtl;
+    
+    @Value("${app.jwt.verified-cache.max-size:10000}")
+    private int verifiedCacheMaxSize;
+    
     private SecretKey key;
     
+    // Parsers are immutable and thread-safe, so one instance serves every request
+    private JwtParser parser;
+    
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(key)
+                .build();
     }
     
     public String generateToken(Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        return generateToken(userPrincipal.getId());
+        return generateToken(userPrincipal);
+    }
+    
+    /**
+     * Access tokens carry the principal's email and roles so requests can be authenticated
+     * from the token alone, without loading the user.
+     */
+    public String generateToken(UserPrincipal userPrincipal) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + jwtExpiration);
+        
+        List<String> roles = userPrincipal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+        
+        return Jwts.builder()
+                .subject(Long.toString(userPrincipal.getId()))
+                .claim(EMAIL_CLAIM, userPrincipal.getEmail())
+                .claim(ROLES_CLAIM, roles)
+                .issuedAt(now)
+                .expiration(expiryDate)
+                .signWith(key)
+                .compact();
     }
     
     public String generateToken(Long userId) {
@@ -62,22 +108,34 @@ public class JwtTokenProvider {
     }
     
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        
+        Claims claims = parser.parseSignedClaims(token).getPayload();
         return Long.parseLong(claims.getSubject());
     }
     
     public boolean validateToken(String authToken) {
+        return parseToken(authToken) != null;
+    }
+    
+    /**
+     * Verifies the token once and returns its claims, or null when it is invalid. Verified
+     * tokens are remembered for a short time (never past their expiry) to skip repeat verification.
+     */
+    public Claims parseToken(String authToken) {
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedTokens.get(authToken);
+        if (cached != null) {
+            if (cached.validUntil() > now) {
+                return cached.claims();
+            }
+            verifiedTokens.remove(authToken);
+        }
+        
         try {
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(authToken);
-            return true;
+            Claims claims = parser.parseSignedClaims(authToken).getPayload();
+            if (verifiedCacheTtl > 0) {
+                remember(authToken, claims, now);
+            }
+            return claims;
         } catch (SecurityException ex) {
             log.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
@@ -88,7 +146,43 @@ public class JwtTokenProvider {
             log.error("Unsupported JWT token");
         } catch (IllegalArgumentException ex) {
             log.error("JWT claims string is empty");
+        } catch (JwtException ex) {
+            log.error("Invalid JWT token");
         }
-        return false;
+        return null;
     }
+    
+    /**
+     * Builds the principal from the token's claims, or returns null for tokens issued without
+     * them (refresh tokens and tokens from before claims were added).
+     */
+    public UserPrincipal getPrincipalFromClaims(Claims claims) {
+        String email = claims.get(EMAIL_CLAIM, String.class);
+        Object roles = claims.get(ROLES_CLAIM);
+        if (email == null || !(roles instanceof Collection<?> roleNames)) {
+            return null;
+        }
+        
+        List<GrantedAuthority> authorities = roleNames.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.toString()))
+                .collect(Collectors.toList());
+        
+        return new UserPrincipal(Long.parseLong(claims.getSubject()), email, null, authorities, null);
+    }
+    
+    private void remember(String authToken, Claims claims, long now) {
+        if (verifiedTokens.size() >= verifiedCacheMaxSize) {
+            verifiedTokens.values().removeIf(token -> token.validUntil() <= now);
+            if (verifiedTokens.size() >= verifiedCacheMaxSize) {
+                verifiedTokens.clear();
+            }
+        }
+        long validUntil = now + verifiedCacheTtl;
+        if (claims.getExpiration() != null) {
+            validUntil = Math.min(validUntil, claims.getExpiration().getTime());
+        }
+        verifiedTokens.put(authToken, new VerifiedToken(claims, validUntil));
+    }
+    
+    private record VerifiedToken(Claims claims, long validUntil) {}
 }
@@ -36,7 +36,7 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
         String redirectUri = getRedirectUris()[0];
 
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        String token = tokenProvider.generateToken(userPrincipal.getId());
+        String token = tokenProvider.generateToken(userPrincipal);
         String refreshToken = tokenProvider.generateRefreshToken(userPrincipal.getId());
 
         String targetUrl = UriComponentsBuilder.fromUriString(redirectUri)
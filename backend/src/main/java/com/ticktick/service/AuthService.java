@@ -8,6 +8,7 @@ import com.ticktick.entity.User;
 import com.ticktick.exception.BadRequestException;
 import com.ticktick.repository.UserRepository;
 import com.ticktick.security.JwtTokenProvider;
+import com.ticktick.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -45,7 +46,7 @@ public class AuthService {
         
         user = userRepository.save(user);
         
-        String accessToken = tokenProvider.generateToken(user.getId());
+        String accessToken = tokenProvider.generateToken(UserPrincipal.create(user));
         String refreshToken = tokenProvider.generateRefreshToken(user.getId());
         
         return AuthResponse.builder()
@@ -85,7 +86,7 @@ public class AuthService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new BadRequestException("User not found"));
         
-        String newAccessToken = tokenProvider.generateToken(userId);
+        String newAccessToken = tokenProvider.generateToken(UserPrincipal.create(user));
         String newRefreshToken = tokenProvider.generateRefreshToken(userId);
         
         return AuthResponse.builder()
@@ -0,0 +1,157 @@
+package com.ticktick.service;
+
+import com.ticktick.config.AsyncConfig;
+import com.ticktick.dto.bootstrap.BootstrapDTO;
+import com.ticktick.dto.bootstrap.SmartListCountsDTO;
+import com.ticktick.dto.task.FolderDTO;
+import com.ticktick.dto.task.TagDTO;
+import com.ticktick.dto.task.TaskListDTO;
+import com.ticktick.entity.Folder;
+import com.ticktick.repository.FolderRepository;
+import com.ticktick.repository.TagRepository;
+import com.ticktick.repository.TaskRepository;
+import com.ticktick.security.UserPrincipal;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Everything the sidebar needs on startup in one response. The four reads are independent, so each
+ * runs on the application executor in its own read-only transaction and connection, and the request
+ * takes as long as the slowest of them. All of them filter by user id; the user row is never loaded.
+ *
+ * The reads share one deadline. When it passes, or one read fails, the others are cancelled, so
+ * queued reads never start, and running ones are stopped by their transaction timeout.
+ */
+@Service
+public class BootstrapService {
+    
+    private final FolderRepository folderRepository;
+    private final TagRepository tagRepository;
+    private final TaskRepository taskRepository;
+    private final TaskListService taskListService;
+    private final AsyncTaskExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long timeoutSeconds;
+    
+    public BootstrapService(FolderRepository folderRepository,
+                            TagRepository tagRepository,
+                            TaskRepository taskRepository,
+                            TaskListService taskListService,
+                            @Qualifier(AsyncConfig.APPLICATION_EXECUTOR) AsyncTaskExecutor executor,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.bootstrap.timeout-seconds:10}") long timeoutSeconds) {
+        this.folderRepository = folderRepository;
+        this.tagRepository = tagRepository;
+        this.taskRepository = taskRepository;
+        this.taskListService = taskListService;
+        this.executor = executor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setTimeout((int) timeoutSeconds);
+        this.timeoutSeconds = timeoutSeconds;
+    }
+    
+    public BootstrapDTO getBootstrap(UserPrincipal currentUser) {
+        Long userId = currentUser.getId();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime todayStart = LocalDate.now().atStartOfDay();
+        
+        CompletableFuture<List<FolderDTO>> folders = supply(() -> folderRepository.findByUserIdOrderBySortOrderAsc(userId)
+                .stream()
+                .map(this::mapToFolderDTO)
+                .collect(Collectors.toList()));
+        CompletableFuture<List<TaskListDTO>> lists = supply(() -> taskListService.getTaskListsByUserId(userId));
+        CompletableFuture<List<TagDTO>> tags = supply(() -> tagRepository.findByUserIdOrderByNameAsc(userId)
+                .stream()
+                .map(tag -> TagDTO.builder()
+                        .id(tag.getId())
+                        .name(tag.getName())
+                        .color(tag.getColor())
+                        .createdAt(tag.getCreatedAt())
+                        .build())
+                .collect(Collectors.toList()));
+        CompletableFuture<SmartListCountsDTO> smartListCounts = supply(() -> {
+            TaskRepository.SmartListCounts counts = taskRepository.countSmartLists(
+                    userId, now, todayStart, todayStart.plusDays(1), todayStart.plusDays(7));
+            return SmartListCountsDTO.builder()
+                    .today(counts.getToday().intValue())
+                    .overdue(counts.getOverdue().intValue())
+                    .next7Days(counts.getNext7Days().intValue())
+                    .build();
+        });
+        
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        List<CompletableFuture<?>> all = List.of(folders, lists, tags, smartListCounts);
+        
+        // Lists are hung under their folders once both have arrived
+        List<FolderDTO> folderTree = await(folders, deadline, all);
+        List<TaskListDTO> allLists = await(lists, deadline, all);
+        Map<Long, List<TaskListDTO>> listsByFolder = allLists.stream()
+                .filter(list -> list.getFolderId() != null)
+                .collect(Collectors.groupingBy(TaskListDTO::getFolderId));
+        folderTree.forEach(folder -> folder.setTaskLists(listsByFolder.getOrDefault(folder.getId(), List.of())));
+        
+        return BootstrapDTO.builder()
+                .folders(folderTree)
+                .lists(allLists.stream().filter(list -> list.getFolderId() == null).collect(Collectors.toList()))
+                .tags(await(tags, deadline, all))
+                .smartListCounts(await(smartListCounts, deadline, all))
+                .build();
+    }
+    
+    private <T> CompletableFuture<T> supply(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> query.get()), executor);
+    }
+    
+    private <T> T await(CompletableFuture<T> future, long deadline, List<CompletableFuture<?>> all) {
+        try {
+            return future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            cancel(all);
+            // Rethrown as is, so the usual exception handlers still apply
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Bootstrap query failed", e.getCause());
+        } catch (TimeoutException e) {
+            cancel(all);
+            throw new IllegalStateException("Bootstrap query timed out after " + timeoutSeconds + "s", e);
+        } catch (InterruptedException e) {
+            cancel(all);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for bootstrap queries", e);
+        }
+    }
+    
+    // No one waits for the other reads any more; completed ones are unaffected
+    private void cancel(List<CompletableFuture<?>> futures) {
+        futures.forEach(future -> future.cancel(true));
+    }
+    
+    private FolderDTO mapToFolderDTO(Folder folder) {
+        return FolderDTO.builder()
+                .id(folder.getId())
+                .name(folder.getName())
+                .color(folder.getColor())
+                .icon(folder.getIcon())
+                .sortOrder(folder.getSortOrder())
+                .createdAt(folder.getCreatedAt())
+                .updatedAt(folder.getUpdatedAt())
+                .build();
+    }
+}
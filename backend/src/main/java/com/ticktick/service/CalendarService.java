@@ -0,0 +1,90 @@
+package com.ticktick.service;
+
+import com.ticktick.dto.calendar.CalendarDayDTO;
+import com.ticktick.dto.calendar.CalendarTaskDTO;
+import com.ticktick.dto.calendar.CalendarWindowDTO;
+import com.ticktick.exception.BadRequestException;
+import com.ticktick.repository.TaskRepository;
+import com.ticktick.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Calendar and timeline windows. A task belongs to every day its [startDate, dueDate] span touches,
+ * so multi-day tasks show up in windows that contain neither of their end points. Windows are
+ * whole days, {@code from} and {@code to} both inclusive.
+ */
+@Service
+@RequiredArgsConstructor
+public class CalendarService {
+    
+    private final TaskRepository taskRepository;
+    
+    @Value("${app.calendar.max-range-days:400}")
+    private long maxRangeDays;
+    
+    @Value("${app.calendar.max-tasks:2000}")
+    private int maxTasks;
+    
+    @Transactional(readOnly = true)
+    public CalendarWindowDTO getTasks(LocalDate from, LocalDate to, UserPrincipal currentUser) {
+        validateWindow(from, to);
+        
+        List<TaskRepository.CalendarTask> rows = taskRepository.findInWindow(
+                currentUser.getId(), from.atStartOfDay(), to.plusDays(1).atStartOfDay(), maxTasks + 1);
+        boolean truncated = rows.size() > maxTasks;
+        
+        return CalendarWindowDTO.builder()
+                .from(from)
+                .to(to)
+                .tasks(rows.stream().limit(maxTasks).map(this::mapToCalendarTaskDTO).collect(Collectors.toList()))
+                .truncated(truncated)
+                .build();
+    }
+    
+    // Month views render from these alone; days without tasks are left out
+    @Transactional(readOnly = true)
+    public List<CalendarDayDTO> getDayCounts(LocalDate from, LocalDate to, UserPrincipal currentUser) {
+        validateWindow(from, to);
+        
+        return taskRepository.countByDayInWindow(currentUser.getId(), from.atStartOfDay(), to.plusDays(1).atStartOfDay())
+                .stream()
+                .map(count -> CalendarDayDTO.builder()
+                        .date(count.getDate())
+                        .total(count.getTotal())
+                        .completed(count.getCompleted())
+                        .build())
+                .collect(Collectors.toList());
+    }
+    
+    private void validateWindow(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new BadRequestException("'to' must not be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new BadRequestException("Range must not exceed " + maxRangeDays + " days");
+        }
+    }
+    
+    private CalendarTaskDTO mapToCalendarTaskDTO(TaskRepository.CalendarTask task) {
+        return CalendarTaskDTO.builder()
+                .id(task.getId())
+                .title(task.getTitle())
+                .priority(task.getPriority())
+                .status(task.getStatus())
+                .startDate(task.getStartDate())
+                .dueDate(task.getDueDate())
+                .allDay(task.getAllDay())
+                .isRecurring(task.getIsRecurring())
+                .taskListId(task.getTaskListId())
+                .parentTaskId(task.getParentTaskId())
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.ticktick.service;
+
+import com.ticktick.entity.Reminder;
+import com.ticktick.entity.SyncChange;
+import com.ticktick.entity.Task;
+import com.ticktick.repository.SyncChangeRepository;
+import com.ticktick.repository.SyncVersionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records workspace changes for delta sync. Must be called inside the transaction that makes the
+ * change, so the change and its version commit or roll back together.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChangeTracker {
+    
+    private final SyncVersionRepository syncVersionRepository;
+    private final SyncChangeRepository syncChangeRepository;
+    
+    @Value("${app.sync.tombstone-retention-days:30}")
+    private int tombstoneRetentionDays;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChange(Long userId, SyncChange.EntityType type, Long entityId) {
+        record(userId, type, entityId, false);
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeletion(Long userId, SyncChange.EntityType type, Long entityId) {
+        record(userId, type, entityId, true);
+    }
+    
+    /**
+     * Records tombstones for a task and everything deleted with it by cascade: its reminders and subtasks.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTaskTreeDeletion(Long userId, Task task) {
+        recordDeletion(userId, SyncChange.EntityType.TASK, task.getId());
+        for (Reminder reminder : task.getReminders()) {
+            recordDeletion(userId, SyncChange.EntityType.REMINDER, reminder.getId());
+        }
+        for (Task subtask : task.getSubtasks()) {
+            recordTaskTreeDeletion(userId, subtask);
+        }
+    }
+    
+    private void record(Long userId, SyncChange.EntityType type, Long entityId, boolean deleted) {
+        Long version = syncVersionRepository.nextVersion(userId);
+        syncChangeRepository.upsert(userId, type.name(), entityId, version, deleted, LocalDateTime.now());
+    }
+    
+    @Scheduled(cron = "${app.sync.tombstone-prune-cron:0 30 3 * * *}")
+    @Transactional
+    public void pruneTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(tombstoneRetentionDays);
+        int users = syncVersionRepository.raiseTombstoneFloors(cutoff);
+        int pruned = syncChangeRepository.deleteTombstonesBefore(cutoff);
+        log.info("Pruned {} sync tombstones for {} users", pruned, users);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ticktick.service;
+
+import com.ticktick.dto.device.DeviceDTO;
+import com.ticktick.dto.device.DeviceRequest;
+import com.ticktick.entity.Device;
+import com.ticktick.entity.User;
+import com.ticktick.exception.ResourceNotFoundException;
+import com.ticktick.repository.DeviceRepository;
+import com.ticktick.repository.UserRepository;
+import com.ticktick.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeviceService {
+    
+    private final DeviceRepository deviceRepository;
+    private final UserRepository userRepository;
+    
+    @Value("${app.push.device-ttl-days:60}")
+    private int deviceTtlDays;
+    
+    /**
+     * Registers a token, or refreshes it when it is already known. A token seen under another
+     * account (the device changed hands) moves to the current user.
+     */
+    @Transactional
+    public DeviceDTO registerDevice(DeviceRequest request, UserPrincipal currentUser) {
+        User user = userRepository.findById(currentUser.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", currentUser.getId()));
+        
+        Device device = deviceRepository.findByToken(request.getToken())
+                .orElseGet(() -> Device.builder().token(request.getToken()).build());
+        device.setUser(user);
+        device.setPlatform(request.getPlatform() != null ? request.getPlatform() : Device.Platform.WEB);
+        device.setName(request.getName());
+        device.setLastSeenAt(LocalDateTime.now());
+        
+        return mapToDeviceDTO(deviceRepository.save(device));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<DeviceDTO> getDevices(UserPrincipal currentUser) {
+        return deviceRepository.findByUserIdOrderByLastSeenAtDesc(currentUser.getId()).stream()
+                .map(this::mapToDeviceDTO)
+                .collect(Collectors.toList());
+    }
+    
+    @Transactional
+    public void deleteDevice(Long deviceId, UserPrincipal currentUser) {
+        Device device = deviceRepository.findByIdAndUserId(deviceId, currentUser.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Device", "id", deviceId));
+        deviceRepository.delete(device);
+    }
+    
+    @Transactional
+    public void removeInvalidTokens(Collection<String> tokens) {
+        if (!tokens.isEmpty()) {
+            int removed = deviceRepository.deleteByTokenIn(tokens);
+            log.info("Removed {} devices with tokens rejected by the push service", removed);
+        }
+    }
+    
+    @Scheduled(cron = "${app.push.prune-cron:0 15 4 * * *}")
+    @Transactional
+    public void pruneStaleDevices() {
+        int removed = deviceRepository.deleteNotSeenSince(LocalDateTime.now().minusDays(deviceTtlDays));
+        log.info("Pruned {} devices not seen for {} days", removed, deviceTtlDays);
+    }
+    
+    private DeviceDTO mapToDeviceDTO(Device device) {
+        return DeviceDTO.builder()
+                .id(device.getId())
+                .platform(device.getPlatform())
+                .name(device.getName())
+                .lastSeenAt(device.getLastSeenAt())
+                .createdAt(device.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,215 @@
+package com.ticktick.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticktick.dto.habit.HabitDTO;
+import com.ticktick.dto.task.FolderDTO;
+import com.ticktick.dto.task.ReminderDTO;
+import com.ticktick.dto.task.TagDTO;
+import com.ticktick.dto.task.TaskDTO;
+import com.ticktick.dto.task.TaskListDTO;
+import com.ticktick.entity.Folder;
+import com.ticktick.entity.Habit;
+import com.ticktick.entity.HabitCompletionYear;
+import com.ticktick.entity.Reminder;
+import com.ticktick.entity.Tag;
+import com.ticktick.entity.Task;
+import com.ticktick.entity.TaskList;
+import com.ticktick.repository.FolderRepository;
+import com.ticktick.repository.HabitCompletionYearRepository;
+import com.ticktick.repository.HabitRepository;
+import com.ticktick.repository.ReminderRepository;
+import com.ticktick.repository.TagRepository;
+import com.ticktick.repository.TaskListRepository;
+import com.ticktick.repository.TaskRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes a user's whole workspace as newline-delimited JSON, one {@link ExportRecord} per line.
+ *
+ * Every section is read through a forward-only cursor and each entity is detached right after it
+ * is written, so memory use does not grow with the size of the workspace.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+    
+    private static final int FLUSH_INTERVAL = 1000;
+    
+    private final TaskRepository taskRepository;
+    private final TaskListRepository taskListRepository;
+    private final FolderRepository folderRepository;
+    private final TagRepository tagRepository;
+    private final HabitRepository habitRepository;
+    private final HabitCompletionYearRepository habitCompletionYearRepository;
+    private final ReminderRepository reminderRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    
+    @Transactional(readOnly = true)
+    public void exportWorkspace(Long userId, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(new SerializedString("\n"));
+        
+        try {
+            long lines = 0;
+            lines += writeEntities(generator, "folder", folderRepository.streamByUserId(userId), this::mapFolder);
+            lines += writeEntities(generator, "list", taskListRepository.streamByUserId(userId), this::mapTaskList);
+            lines += writeEntities(generator, "tag", tagRepository.streamByUserId(userId), this::mapTag);
+            lines += writeEntities(generator, "task", taskRepository.streamByUserId(userId), this::mapTask);
+            lines += writeRows(generator, "task_tag", taskRepository.streamTagLinksByUserId(userId),
+                    row -> new TaskTagLink((Long) row[0], (Long) row[1]));
+            lines += writeEntities(generator, "reminder", reminderRepository.streamByUserId(userId), this::mapReminder);
+            lines += writeEntities(generator, "habit", habitRepository.streamByUserId(userId), this::mapHabit);
+            lines += writeRows(generator, "habit_completion",
+                    habitCompletionYearRepository.streamByUserId(userId).flatMap(this::habitCompletions),
+                    completion -> completion);
+            
+            generator.writeRaw('\n');
+            log.info("Exported {} records for user {}", lines, userId);
+        } finally {
+            generator.close();
+        }
+    }
+    
+    private <E> long writeEntities(JsonGenerator generator, String type, Stream<E> entities,
+                                   Function<E, Object> mapper) throws IOException {
+        return writeRows(generator, type, entities, entity -> {
+            Object data = mapper.apply(entity);
+            entityManager.detach(entity);
+            return data;
+        });
+    }
+    
+    private <R> long writeRows(JsonGenerator generator, String type, Stream<R> rows,
+                               Function<R, Object> mapper) throws IOException {
+        long count = 0;
+        try (rows) {
+            Iterator<R> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(new ExportRecord(type, mapper.apply(iterator.next())));
+                if (++count % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        return count;
+    }
+    
+    // Mappers only read columns and foreign keys so no lazy association is ever initialized
+    
+    private Object mapFolder(Folder folder) {
+        return FolderDTO.builder()
+                .id(folder.getId())
+                .name(folder.getName())
+                .color(folder.getColor())
+                .icon(folder.getIcon())
+                .sortOrder(folder.getSortOrder())
+                .createdAt(folder.getCreatedAt())
+                .updatedAt(folder.getUpdatedAt())
+                .build();
+    }
+    
+    private Object mapTaskList(TaskList taskList) {
+        return TaskListDTO.builder()
+                .id(taskList.getId())
+                .name(taskList.getName())
+                .color(taskList.getColor())
+                .icon(taskList.getIcon())
+                .viewType(taskList.getViewType())
+                .sortOrder(taskList.getSortOrder())
+                .isShared(taskList.getIsShared())
+                .folderId(taskList.getFolder() != null ? taskList.getFolder().getId() : null)
+                .createdAt(taskList.getCreatedAt())
+                .updatedAt(taskList.getUpdatedAt())
+                .build();
+    }
+    
+    private Object mapTag(Tag tag) {
+        return TagDTO.builder()
+                .id(tag.getId())
+                .name(tag.getName())
+                .color(tag.getColor())
+                .createdAt(tag.getCreatedAt())
+                .build();
+    }
+    
+    private Object mapTask(Task task) {
+        return TaskDTO.builder()
+                .id(task.getId())
+                .title(task.getTitle())
+                .description(task.getDescription())
+                .notes(task.getNotes())
+                .priority(task.getPriority())
+                .status(task.getStatus())
+                .dueDate(task.getDueDate())
+                .startDate(task.getStartDate())
+                .completedAt(task.getCompletedAt())
+                .allDay(task.getAllDay())
+                .sortOrder(task.getSortOrder())
+                .isRecurring(task.getIsRecurring())
+                .recurrenceType(task.getRecurrenceType())
+                .recurrenceInterval(task.getRecurrenceInterval())
+                .recurrenceEndDate(task.getRecurrenceEndDate())
+                .recurrenceDays(task.getRecurrenceDays())
+                .recurrenceRule(task.getRecurrenceRule())
+                .taskListId(task.getTaskList() != null ? task.getTaskList().getId() : null)
+                .parentTaskId(task.getParentTask() != null ? task.getParentTask().getId() : null)
+                .pomodoroCount(task.getPomodoroCount())
+                .timeSpent(task.getTimeSpent())
+                .createdAt(task.getCreatedAt())
+                .updatedAt(task.getUpdatedAt())
+                .build();
+    }
+    
+    private Object mapReminder(Reminder reminder) {
+        return new TaskReminder(reminder.getTask().getId(), ReminderDTO.builder()
+                .id(reminder.getId())
+                .remindAt(reminder.getRemindAt())
+                .type(reminder.getType())
+                .isSent(reminder.getIsSent())
+                .sentAt(reminder.getSentAt())
+                .createdAt(reminder.getCreatedAt())
+                .build());
+    }
+    
+    private Object mapHabit(Habit habit) {
+        return HabitDTO.builder()
+                .id(habit.getId())
+                .name(habit.getName())
+                .color(habit.getColor())
+                .icon(habit.getIcon())
+                .sortOrder(habit.getSortOrder())
+                .build();
+    }
+    
+    // Expands a year bitset back into the one-record-per-day export format
+    private Stream<HabitCompletion> habitCompletions(HabitCompletionYear year) {
+        entityManager.detach(year);
+        Long habitId = year.getHabit().getId();
+        return year.completedBetween(LocalDate.MIN, LocalDate.MAX).stream()
+                .map(date -> new HabitCompletion(habitId, date));
+    }
+    
+    public record ExportRecord(String type, Object data) {}
+    
+    public record TaskTagLink(Long taskId, Long tagId) {}
+    
+    public record TaskReminder(Long taskId, ReminderDTO reminder) {}
+    
+    public record HabitCompletion(Long habitId, LocalDate date) {}
+}
@@ -3,18 +3,26 @@ package com.ticktick.service;
 import com.ticktick.dto.habit.HabitDTO;
 import com.ticktick.dto.habit.HabitRequest;
 import com.ticktick.entity.Habit;
+import com.ticktick.entity.HabitCompletionYear;
+import com.ticktick.entity.SyncChange;
 import com.ticktick.entity.User;
 import com.ticktick.exception.BadRequestException;
 import com.ticktick.exception.ResourceNotFoundException;
+import com.ticktick.repository.HabitCompletionYearRepository;
 import com.ticktick.repository.HabitRepository;
 import com.ticktick.repository.UserRepository;
 import com.ticktick.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,6 +31,16 @@ public class HabitService {
 
     private final HabitRepository habitRepository;
     private final UserRepository userRepository;
+    private final ChangeTracker changeTracker;
+    private final HabitCompletionYearRepository completionYearRepository;
+    private final HabitStatsService statsService;
+
+    // Window used when the caller does not ask for one: the last few weeks, enough for the week view
+    @Value("${app.habits.default-window-days:35}")
+    private int defaultWindowDays;
+
+    @Value("${app.habits.max-window-days:400}")
+    private int maxWindowDays;
 
     @Transactional
     public HabitDTO createHabit(HabitRequest request, UserPrincipal currentUser) {
@@ -37,35 +55,48 @@ public class HabitService {
                 .build();
 
         habit = habitRepository.save(habit);
-        return mapToDTO(habit);
+        changeTracker.recordChange(user.getId(), SyncChange.EntityType.HABIT, habit.getId());
+        return mapToDTOs(List.of(habit), defaultWindowStart(), LocalDate.now()).get(0);
     }
 
+    /**
+     * Habits with their completions between {@code from} and {@code to} (inclusive); both default
+     * to the last {@code app.habits.default-window-days} days.
+     */
     @Transactional(readOnly = true)
-    public List<HabitDTO> getHabits(UserPrincipal currentUser) {
+    public List<HabitDTO> getHabits(LocalDate from, LocalDate to, UserPrincipal currentUser) {
+        LocalDate windowEnd = to != null ? to : LocalDate.now();
+        LocalDate windowStart = from != null ? from : windowEnd.minusDays(defaultWindowDays - 1L);
+        if (windowEnd.isBefore(windowStart)) {
+            throw new BadRequestException("'to' must not be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(windowStart, windowEnd) >= maxWindowDays) {
+            throw new BadRequestException("Range must not exceed " + maxWindowDays + " days");
+        }
+
         User user = getUserById(currentUser.getId());
-        return habitRepository.findByUserOrderBySortOrderAsc(user).stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return mapToDTOs(habitRepository.findByUserOrderBySortOrderAsc(user), windowStart, windowEnd);
     }
 
     @Transactional
     public HabitDTO toggleHabitCompletion(Long habitId, LocalDate date, UserPrincipal currentUser) {
         User user = getUserById(currentUser.getId());
-        Habit habit = habitRepository.findById(habitId)
+        Habit habit = habitRepository.lockById(habitId)
                 .orElseThrow(() -> new ResourceNotFoundException("Habit", "id", habitId));
 
         if (!habit.getUser().getId().equals(user.getId())) {
             throw new BadRequestException("Habit does not belong to current user");
         }
 
-        if (habit.getCompletedDates().contains(date)) {
-            habit.getCompletedDates().remove(date);
-        } else {
-            habit.getCompletedDates().add(date);
-        }
+        // Touches a single year row, however long the habit's history is
+        completionYearRepository.insertIfAbsent(habit.getId(), date.getYear());
+        HabitCompletionYear completionYear = completionYearRepository.lockByHabitIdAndYear(habit.getId(), date.getYear())
+                .orElseThrow(() -> new IllegalStateException("Completion year missing for habit " + habitId));
+        statsService.recordToggle(habit, date, completionYear.toggle(date));
 
-        habit = habitRepository.save(habit);
-        return mapToDTO(habit);
+        changeTracker.recordChange(user.getId(), SyncChange.EntityType.HABIT, habit.getId());
+        // The whole toggled year, so the response reflects the toggle whichever day it was
+        return mapToDTOs(List.of(habit), date.withDayOfYear(1), date.withDayOfYear(date.lengthOfYear())).get(0);
     }
     
     @Transactional
@@ -79,6 +110,16 @@ public class HabitService {
         }
         
         habitRepository.delete(habit);
+        changeTracker.recordDeletion(user.getId(), SyncChange.EntityType.HABIT, habitId);
+    }
+
+    /**
+     * Habits with their complete history, for sync: a client replaces its copy of a changed habit
+     * with this one, so a window would drop the days outside it. It is one bitset row per year.
+     */
+    @Transactional(readOnly = true)
+    public List<HabitDTO> getHabitsByIds(Collection<Long> habitIds) {
+        return mapToDTOs(habitRepository.findAllById(habitIds), null, null);
     }
 
     private User getUserById(Long userId) {
@@ -86,14 +127,40 @@ public class HabitService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
     }
 
-    private HabitDTO mapToDTO(Habit habit) {
-        return HabitDTO.builder()
-                .id(habit.getId())
-                .name(habit.getName())
-                .color(habit.getColor())
-                .icon(habit.getIcon())
-                .completedDates(habit.getCompletedDates())
-                .sortOrder(habit.getSortOrder())
-                .build();
+    private LocalDate defaultWindowStart() {
+        return LocalDate.now().minusDays(defaultWindowDays - 1L);
+    }
+
+    // Completions for all habits come from one query over the years the window touches; null bounds are open
+    private List<HabitDTO> mapToDTOs(List<Habit> habits, LocalDate from, LocalDate to) {
+        if (habits.isEmpty()) {
+            return List.of();
+        }
+        LocalDate first = from != null ? from : LocalDate.MIN;
+        LocalDate last = to != null ? to : LocalDate.MAX;
+        Map<Long, List<HabitCompletionYear>> yearsByHabit = completionYearRepository
+                .findByHabitIdsAndYears(habits.stream().map(Habit::getId).collect(Collectors.toList()),
+                        first.getYear(), last.getYear())
+                .stream()
+                .collect(Collectors.groupingBy(year -> year.getHabit().getId()));
+
+        return habits.stream()
+                .map(habit -> {
+                    TreeSet<LocalDate> completedDates = new TreeSet<>();
+                    for (HabitCompletionYear year : yearsByHabit.getOrDefault(habit.getId(), List.of())) {
+                        completedDates.addAll(year.completedBetween(first, last));
+                    }
+                    return HabitDTO.builder()
+                            .id(habit.getId())
+                            .name(habit.getName())
+                            .color(habit.getColor())
+                            .icon(habit.getIcon())
+                            .completedDates(completedDates)
+                            .completedFrom(from)
+                            .completedTo(to)
+                            .sortOrder(habit.getSortOrder())
+                            .build();
+                })
+                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,239 @@
+package com.ticktick.service;
+
+import com.ticktick.dto.habit.HabitStatsDTO;
+import com.ticktick.entity.Habit;
+import com.ticktick.entity.HabitCompletionYear;
+import com.ticktick.entity.HabitStats;
+import com.ticktick.entity.HabitStreakRun;
+import com.ticktick.entity.User;
+import com.ticktick.exception.ResourceNotFoundException;
+import com.ticktick.repository.HabitCompletionYearRepository;
+import com.ticktick.repository.HabitRepository;
+import com.ticktick.repository.HabitStatsRepository;
+import com.ticktick.repository.HabitStreakRunRepository;
+import com.ticktick.repository.UserRepository;
+import com.ticktick.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Habit streaks and totals. Every toggle adjusts the counters and the streak runs around the
+ * toggled day only; history is scanned once per habit, to seed the counters the first time
+ * they are needed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HabitStatsService {
+    
+    private final HabitRepository habitRepository;
+    private final HabitStatsRepository habitStatsRepository;
+    private final HabitStreakRunRepository streakRunRepository;
+    private final HabitCompletionYearRepository completionYearRepository;
+    private final UserRepository userRepository;
+    
+    /**
+     * Applies one toggle, after the bitset has been updated. The caller holds the habit's row lock,
+     * so toggles of one habit are applied one at a time.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordToggle(Habit habit, LocalDate date, boolean completed) {
+        HabitStats stats = habitStatsRepository.findById(habit.getId()).orElse(null);
+        if (stats == null) {
+            // Seeded from the bitsets, which already include this toggle
+            rebuild(habit);
+            return;
+        }
+        
+        if (completed) {
+            addDay(habit, stats, date);
+        } else {
+            removeDay(habit, stats, date);
+        }
+    }
+    
+    @Transactional
+    public List<HabitStatsDTO> getStats(int heatmapYear, UserPrincipal currentUser) {
+        User user = userRepository.findById(currentUser.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", currentUser.getId()));
+        List<Habit> habits = habitRepository.findByUserOrderBySortOrderAsc(user);
+        if (habits.isEmpty()) {
+            return List.of();
+        }
+        List<Long> habitIds = habits.stream().map(Habit::getId).collect(Collectors.toList());
+        LocalDate today = LocalDate.now();
+        LocalDate windowStart = today.minusDays(29);
+        
+        Map<Long, HabitStats> statsByHabit = habitStatsRepository.findByHabitIdIn(habitIds).stream()
+                .collect(Collectors.toMap(HabitStats::getHabitId, Function.identity()));
+        for (Habit habit : habits) {
+            if (!statsByHabit.containsKey(habit.getId())) {
+                habitRepository.lockById(habit.getId());
+                statsByHabit.put(habit.getId(), rebuild(habit));
+            }
+        }
+        
+        Map<Long, HabitStreakRun> currentRuns = streakRunRepository.findCurrent(habitIds, today, today.minusDays(1)).stream()
+                .collect(Collectors.toMap(run -> run.getHabit().getId(), Function.identity()));
+        Map<Long, List<HabitCompletionYear>> yearsByHabit = completionYearRepository
+                .findByHabitIdsAndYears(habitIds, Math.min(heatmapYear, windowStart.getYear()), Math.max(heatmapYear, today.getYear()))
+                .stream()
+                .collect(Collectors.groupingBy(year -> year.getHabit().getId()));
+        
+        List<HabitStatsDTO> result = new ArrayList<>();
+        for (Habit habit : habits) {
+            HabitStats stats = statsByHabit.get(habit.getId());
+            List<HabitCompletionYear> years = yearsByHabit.getOrDefault(habit.getId(), List.of());
+            HabitStreakRun currentRun = currentRuns.get(habit.getId());
+            
+            int currentStreak = currentRun == null ? 0
+                    : (int) ChronoUnit.DAYS.between(currentRun.getStartDate(), min(currentRun.getEndDate(), today)) + 1;
+            int last7 = countBetween(years, today.minusDays(6), today);
+            int last30 = countBetween(years, windowStart, today);
+            long trackedDays = ChronoUnit.DAYS.between(habit.getCreatedAt().toLocalDate(), today) + 1;
+            
+            result.add(HabitStatsDTO.builder()
+                    .habitId(habit.getId())
+                    .currentStreak(currentStreak)
+                    .longestStreak(stats.getLongestStreak())
+                    .totalCompletions(stats.getTotalCompletions())
+                    .completionRate7Days(last7 / 7.0)
+                    .completionRate30Days(last30 / 30.0)
+                    .completionRateAllTime(stats.getTotalCompletions() / (double) Math.max(Math.max(trackedDays, stats.getTotalCompletions()), 1))
+                    .heatmapYear(heatmapYear)
+                    .heatmap(heatmap(years, heatmapYear))
+                    .build());
+        }
+        return result;
+    }
+    
+    private void addDay(Habit habit, HabitStats stats, LocalDate date) {
+        Optional<HabitStreakRun> before = streakRunRepository.findByHabitIdAndEndDate(habit.getId(), date.minusDays(1));
+        Optional<HabitStreakRun> after = streakRunRepository.findByHabitIdAndStartDate(habit.getId(), date.plusDays(1));
+        
+        HabitStreakRun run;
+        if (before.isPresent() && after.isPresent()) {
+            // The day joins two runs into one
+            run = before.get();
+            run.setSpan(run.getStartDate(), after.get().getEndDate());
+            streakRunRepository.delete(after.get());
+        } else if (before.isPresent()) {
+            run = before.get();
+            run.setSpan(run.getStartDate(), date);
+        } else if (after.isPresent()) {
+            run = after.get();
+            run.setSpan(date, run.getEndDate());
+        } else {
+            run = newRun(habit, date, date);
+        }
+        
+        stats.setTotalCompletions(stats.getTotalCompletions() + 1);
+        stats.setLongestStreak(Math.max(stats.getLongestStreak(), run.getDays()));
+    }
+    
+    private void removeDay(Habit habit, HabitStats stats, LocalDate date) {
+        HabitStreakRun run = streakRunRepository
+                .findFirstByHabitIdAndEndDateGreaterThanEqualOrderByEndDateAsc(habit.getId(), date)
+                .filter(candidate -> !candidate.getStartDate().isAfter(date))
+                .orElse(null);
+        if (run == null) {
+            log.warn("Streak runs of habit {} out of step with its completions; rebuilding", habit.getId());
+            rebuild(habit);
+            return;
+        }
+        
+        int previousDays = run.getDays();
+        LocalDate start = run.getStartDate();
+        LocalDate end = run.getEndDate();
+        if (start.equals(end)) {
+            streakRunRepository.delete(run);
+        } else if (start.equals(date)) {
+            run.setSpan(date.plusDays(1), end);
+        } else if (end.equals(date)) {
+            run.setSpan(start, date.minusDays(1));
+        } else {
+            // The day splits the run in two
+            run.setSpan(start, date.minusDays(1));
+            newRun(habit, date.plusDays(1), end);
+        }
+        
+        stats.setTotalCompletions(stats.getTotalCompletions() - 1);
+        if (previousDays >= stats.getLongestStreak()) {
+            // Only shortening the longest run can lower the record; the next longest is an index lookup
+            stats.setLongestStreak(streakRunRepository.findLongestDays(habit.getId()));
+        }
+    }
+    
+    private HabitStreakRun newRun(Habit habit, LocalDate start, LocalDate end) {
+        HabitStreakRun run = HabitStreakRun.builder().habit(habit).build();
+        run.setSpan(start, end);
+        return streakRunRepository.save(run);
+    }
+    
+    // Full scan of the habit's bitsets; only used to seed the counters or repair them
+    private HabitStats rebuild(Habit habit) {
+        streakRunRepository.deleteByHabitId(habit.getId());
+        
+        int total = 0;
+        int longest = 0;
+        LocalDate runStart = null;
+        LocalDate previous = null;
+        for (HabitCompletionYear year : completionYearRepository.findByHabitIdOrderByYearAsc(habit.getId())) {
+            for (LocalDate date : year.completedBetween(LocalDate.MIN, LocalDate.MAX)) {
+                if (previous == null || !date.equals(previous.plusDays(1))) {
+                    if (runStart != null) {
+                        longest = Math.max(longest, newRun(habit, runStart, previous).getDays());
+                    }
+                    runStart = date;
+                }
+                previous = date;
+                total++;
+            }
+        }
+        if (runStart != null) {
+            longest = Math.max(longest, newRun(habit, runStart, previous).getDays());
+        }
+        
+        HabitStats stats = habitStatsRepository.findById(habit.getId())
+                .orElseGet(() -> HabitStats.builder().habit(habit).build());
+        stats.setTotalCompletions(total);
+        stats.setLongestStreak(longest);
+        return habitStatsRepository.save(stats);
+    }
+    
+    private int countBetween(List<HabitCompletionYear> years, LocalDate from, LocalDate to) {
+        int count = 0;
+        for (HabitCompletionYear year : years) {
+            if (year.getYear() >= from.getYear() && year.getYear() <= to.getYear()) {
+                count += year.completedBetween(from, to).size();
+            }
+        }
+        return count;
+    }
+    
+    private String heatmap(List<HabitCompletionYear> years, int heatmapYear) {
+        for (HabitCompletionYear year : years) {
+            if (year.getYear() == heatmapYear) {
+                return Base64.getEncoder().encodeToString(year.getBits());
+            }
+        }
+        return Base64.getEncoder().encodeToString(new byte[HabitCompletionYear.BYTES]);
+    }
+    
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
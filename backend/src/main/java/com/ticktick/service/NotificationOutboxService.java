@@ -0,0 +1,303 @@
+package com.ticktick.service;
+
+import com.ticktick.config.AsyncConfig;
+import com.ticktick.entity.NotificationOutbox;
+import com.ticktick.mail.EmailMessage;
+import com.ticktick.push.PushMessage;
+import com.ticktick.repository.NotificationOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Durable notification delivery.
+ *
+ * {@link #enqueue} writes a row in the caller's transaction. Per channel, a poller claims due
+ * rows with {@code FOR UPDATE SKIP LOCKED}, leases them (status SENDING) and hands them to that
+ * channel's executor; emails go in chunks of app.mail.batch-size over one pooled connection,
+ * pushes in chunks of app.push.batch-size through multicast calls. Failed deliveries are retried with exponential backoff and jitter and end
+ * up DEAD after {@code app.notifications.max-attempts}. The lease is renewed when a chunk's send
+ * starts, so time spent queued behind other chunks does not count against it; a worker that dies
+ * mid-delivery lets its lease expire and the row is retried, which counts as a failed attempt.
+ */
+@Slf4j
+@Service
+public class NotificationOutboxService {
+    
+    private static final String LEASE_EXPIRED = "Delivery lease expired";
+    
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<NotificationOutbox.Channel, ThreadPoolTaskExecutor> executors = new EnumMap<>(NotificationOutbox.Channel.class);
+    private final Map<NotificationOutbox.Channel, AtomicLong> queueDepth = new EnumMap<>(NotificationOutbox.Channel.class);
+    private final Map<NotificationOutbox.Channel, AtomicLong> oldestAgeSeconds = new EnumMap<>(NotificationOutbox.Channel.class);
+    
+    @Value("${app.notifications.batch-size:50}")
+    private int batchSize;
+    
+    @Value("${app.notifications.max-attempts:6}")
+    private int maxAttempts;
+    
+    @Value("${app.notifications.backoff-initial:30}")
+    private long backoffInitialSeconds;
+    
+    @Value("${app.notifications.backoff-max:3600}")
+    private long backoffMaxSeconds;
+    
+    @Value("${app.notifications.lease-seconds:300}")
+    private long leaseSeconds;
+    
+    @Value("${app.notifications.retention-days:7}")
+    private int retentionDays;
+    
+    @Value("${app.mail.batch-size:20}")
+    private int emailBatchSize;
+    
+    @Value("${app.push.batch-size:100}")
+    private int pushBatchSize;
+    
+    public NotificationOutboxService(NotificationOutboxRepository outboxRepository,
+                                     NotificationService notificationService,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Qualifier(AsyncConfig.EMAIL_EXECUTOR) ThreadPoolTaskExecutor emailExecutor,
+                                     @Qualifier(AsyncConfig.PUSH_EXECUTOR) ThreadPoolTaskExecutor pushExecutor) {
+        this.outboxRepository = outboxRepository;
+        this.notificationService = notificationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        executors.put(NotificationOutbox.Channel.EMAIL, emailExecutor);
+        executors.put(NotificationOutbox.Channel.PUSH, pushExecutor);
+        
+        for (NotificationOutbox.Channel channel : NotificationOutbox.Channel.values()) {
+            Tags tags = Tags.of("channel", channel.name().toLowerCase());
+            queueDepth.put(channel, meterRegistry.gauge("notifications.outbox.depth", tags, new AtomicLong()));
+            oldestAgeSeconds.put(channel, meterRegistry.gauge("notifications.outbox.oldest.age", tags, new AtomicLong()));
+        }
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(NotificationOutbox.Channel channel, Long userId, String recipient, String subject, String body) {
+        if (channel == NotificationOutbox.Channel.EMAIL && (recipient == null || recipient.isEmpty())) {
+            log.warn("No {} recipient for user {}, skipping notification", channel, userId);
+            return;
+        }
+        outboxRepository.save(NotificationOutbox.builder()
+                .channel(channel)
+                .userId(userId)
+                .recipient(recipient)
+                .subject(subject)
+                .body(body)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+    }
+    
+    @Scheduled(fixedDelayString = "${app.notifications.poll-interval:1000}")
+    public void dispatchEmail() {
+        dispatch(NotificationOutbox.Channel.EMAIL);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.notifications.poll-interval:1000}")
+    public void dispatchPush() {
+        dispatch(NotificationOutbox.Channel.PUSH);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.notifications.metrics-interval:15000}")
+    public void refreshQueueMetrics() {
+        try {
+            Map<NotificationOutbox.Channel, NotificationOutboxRepository.QueueStats> stats = outboxRepository
+                    .findQueueStats(List.of(NotificationOutbox.Status.PENDING, NotificationOutbox.Status.SENDING)).stream()
+                    .collect(Collectors.toMap(NotificationOutboxRepository.QueueStats::getChannel, s -> s));
+            LocalDateTime now = LocalDateTime.now();
+            for (NotificationOutbox.Channel channel : NotificationOutbox.Channel.values()) {
+                NotificationOutboxRepository.QueueStats channelStats = stats.get(channel);
+                queueDepth.get(channel).set(channelStats != null ? channelStats.getDepth() : 0);
+                oldestAgeSeconds.get(channel).set(channelStats != null && channelStats.getOldest() != null
+                        ? Duration.between(channelStats.getOldest(), now).getSeconds() : 0);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh notification outbox metrics", e);
+        }
+    }
+    
+    @Scheduled(cron = "${app.notifications.cleanup-cron:0 0 4 * * *}")
+    @Transactional
+    public void deleteDelivered() {
+        int deleted = outboxRepository.deleteSentBefore(NotificationOutbox.Status.SENT,
+                LocalDateTime.now().minusDays(retentionDays));
+        log.info("Deleted {} delivered notifications", deleted);
+    }
+    
+    private void dispatch(NotificationOutbox.Channel channel) {
+        ThreadPoolTaskExecutor executor = executors.get(channel);
+        int chunkSize = channel == NotificationOutbox.Channel.EMAIL ? emailBatchSize : pushBatchSize;
+        int capacity = Math.min(batchSize, executor.getThreadPoolExecutor().getQueue().remainingCapacity() * chunkSize);
+        if (capacity <= 0) {
+            return;
+        }
+        
+        LocalDateTime leaseUntil = leaseUntil();
+        List<NotificationOutbox> claimed;
+        try {
+            claimed = transactionTemplate.execute(status -> claim(channel, capacity, leaseUntil));
+        } catch (Exception e) {
+            log.error("Failed to claim {} notifications", channel, e);
+            return;
+        }
+        for (int i = 0; i < claimed.size(); i += chunkSize) {
+            List<NotificationOutbox> chunk = claimed.subList(i, Math.min(i + chunkSize, claimed.size()));
+            executor.execute(() -> deliver(channel, chunk, leaseUntil));
+        }
+    }
+    
+    private List<NotificationOutbox> claim(NotificationOutbox.Channel channel, int limit, LocalDateTime leaseUntil) {
+        List<NotificationOutbox> due = outboxRepository.lockDue(channel.name(), LocalDateTime.now(), limit);
+        List<NotificationOutbox> claimed = new ArrayList<>();
+        for (NotificationOutbox notification : due) {
+            if (notification.getStatus() == NotificationOutbox.Status.SENDING) {
+                // The previous lease ran out without a result; that counts against the row like any failure
+                notification.setAttempts(notification.getAttempts() + 1);
+                notification.setLastError(LEASE_EXPIRED);
+                if (notification.getAttempts() >= maxAttempts) {
+                    notification.setStatus(NotificationOutbox.Status.DEAD);
+                    log.error("Giving up on {} notification {} after {} attempts: {}",
+                            channel, notification.getId(), notification.getAttempts(), LEASE_EXPIRED);
+                    count(channel, "dead", 1);
+                    continue;
+                }
+            }
+            claimed.add(notification);
+        }
+        if (!claimed.isEmpty()) {
+            outboxRepository.markSending(claimed.stream().map(NotificationOutbox::getId).collect(Collectors.toList()),
+                    NotificationOutbox.Status.SENDING, leaseUntil);
+        }
+        return claimed;
+    }
+    
+    /**
+     * Restarts the lease of the chunk's rows now that their send begins, and returns those still
+     * held. A row whose lease ran out while the chunk was queued may have been claimed again and
+     * is left to its new owner.
+     */
+    private List<NotificationOutbox> renewLease(List<NotificationOutbox> chunk, LocalDateTime leaseUntil) {
+        Set<Long> held = new HashSet<>(outboxRepository.lockLeased(
+                chunk.stream().map(NotificationOutbox::getId).collect(Collectors.toList()), leaseUntil));
+        if (!held.isEmpty()) {
+            outboxRepository.markSending(held, NotificationOutbox.Status.SENDING, leaseUntil());
+        }
+        if (held.size() < chunk.size()) {
+            log.warn("{} of {} {} notifications outlived their lease while queued and were skipped",
+                    chunk.size() - held.size(), chunk.size(), chunk.get(0).getChannel());
+        }
+        return chunk.stream().filter(notification -> held.contains(notification.getId())).collect(Collectors.toList());
+    }
+    
+    // Also identifies the claim, so it is truncated to the precision the column stores
+    private LocalDateTime leaseUntil() {
+        return LocalDateTime.now().plusSeconds(leaseSeconds).truncatedTo(ChronoUnit.MICROS);
+    }
+    
+    private void deliver(NotificationOutbox.Channel channel, List<NotificationOutbox> claimed, LocalDateTime leaseUntil) {
+        List<NotificationOutbox> chunk;
+        try {
+            chunk = transactionTemplate.execute(status -> renewLease(claimed, leaseUntil));
+        } catch (Exception e) {
+            // Nothing was sent; the rows are retried once the claim's lease expires
+            log.error("Failed to renew the lease of {} {} notifications", claimed.size(), channel, e);
+            return;
+        }
+        if (chunk.isEmpty()) {
+            return;
+        }
+        
+        List<Exception> results;
+        if (channel == NotificationOutbox.Channel.EMAIL) {
+            // One pooled SMTP connection carries the whole chunk
+            results = notificationService.sendEmailBatch(chunk.stream()
+                    .map(notification -> new EmailMessage(notification.getRecipient(), notification.getSubject(), notification.getBody()))
+                    .collect(Collectors.toList()));
+        } else {
+            // Identical messages across the chunk share multicast calls
+            results = notificationService.sendPushBatch(chunk.stream()
+                    .map(notification -> new PushMessage(notification.getUserId(), notification.getSubject(), notification.getBody()))
+                    .collect(Collectors.toList()));
+        }
+        
+        List<Long> sent = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (results.get(i) == null) {
+                sent.add(chunk.get(i).getId());
+            } else {
+                fail(chunk.get(i), results.get(i));
+            }
+        }
+        if (sent.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.markSent(
+                    sent, NotificationOutbox.Status.SENT, LocalDateTime.now()));
+            count(channel, "sent", sent.size());
+        } catch (Exception e) {
+            // Leases expire and the rows are delivered again; duplicates beat losing them
+            log.error("Failed to mark {} {} notifications as sent", sent.size(), channel, e);
+        }
+    }
+    
+    private void fail(NotificationOutbox notification, Exception error) {
+        int attempts = notification.getAttempts() + 1;
+        boolean dead = attempts >= maxAttempts;
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getName();
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.markFailed(
+                    notification.getId(),
+                    dead ? NotificationOutbox.Status.DEAD : NotificationOutbox.Status.PENDING,
+                    LocalDateTime.now().plusSeconds(backoffSeconds(attempts)),
+                    message.length() > 1000 ? message.substring(0, 1000) : message));
+        } catch (Exception e) {
+            // The lease expires and the row is retried anyway
+            log.error("Failed to record delivery failure of notification {}", notification.getId(), e);
+        }
+        if (dead) {
+            log.error("Giving up on {} notification {} after {} attempts", notification.getChannel(), notification.getId(), attempts, error);
+        } else {
+            log.warn("Delivery of {} notification {} failed (attempt {}): {}", notification.getChannel(), notification.getId(), attempts, message);
+        }
+        count(notification.getChannel(), dead ? "dead" : "failed", 1);
+    }
+    
+    private long backoffSeconds(int attempts) {
+        long backoff = Math.min(backoffMaxSeconds, backoffInitialSeconds << Math.min(attempts - 1, 20));
+        // Up to 20% jitter so a burst of failures does not retry in lockstep
+        return backoff + ThreadLocalRandom.current().nextLong(backoff / 5 + 1);
+    }
+    
+    private void count(NotificationOutbox.Channel channel, String result, int amount) {
+        meterRegistry.counter("notifications.delivery", "channel", channel.name().toLowerCase(), "result", result).increment(amount);
+    }
+}
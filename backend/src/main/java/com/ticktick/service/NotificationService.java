@@ -1,60 +1,128 @@
 package com.ticktick.service;
 
+import com.ticktick.mail.EmailMessage;
+import com.ticktick.mail.PooledMailSender;
+import com.ticktick.push.PushGateway;
+import com.ticktick.push.PushMessage;
+import com.ticktick.repository.DeviceRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers notifications synchronously and reports failures to the caller, so the outbox
+ * workers can retry them. Callers that want durable delivery go through
+ * {@link NotificationOutboxService} instead of calling this directly.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
     
-    private final JavaMailSender mailSender;
-    // private final FirebaseMessaging firebaseMessaging; // Uncomment when Firebase is configured
+    private final PooledMailSender mailSender;
+    private final PushGateway pushGateway;
+    private final DeviceRepository deviceRepository;
+    private final DeviceService deviceService;
     
-    @Async
-    public void sendEmailNotification(String to, String subject, String body) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(body);
-            message.setFrom("noreply@ticktick.com");
-            
-            mailSender.send(message);
-            log.info("Email sent to {}", to);
-        } catch (Exception e) {
-            log.error("Failed to send email to {}", to, e);
+    public void sendEmailNotification(String to, String subject, String body) throws Exception {
+        Exception failure = mailSender.send(List.of(new EmailMessage(to, subject, body))).get(0);
+        if (failure != null) {
+            throw failure;
         }
+        log.info("Email sent to {}", to);
+    }
+    
+    /**
+     * Sends the messages over pooled connections. Returns one entry per message: null when it
+     * was accepted, otherwise the failure.
+     */
+    public List<Exception> sendEmailBatch(List<EmailMessage> messages) {
+        List<Exception> results = mailSender.send(messages);
+        log.info("Email batch of {} sent, {} failed", messages.size(), results.stream().filter(Objects::nonNull).count());
+        return results;
     }
     
-    @Async
-    public void sendPushNotification(String fcmToken, String title, String body) {
-        if (fcmToken == null || fcmToken.isEmpty()) {
-            log.warn("FCM token is null or empty, skipping push notification");
-            return;
+    /**
+     * Delivers each message to every device of its user. Messages with the same title and body
+     * share multicast calls of up to {@link PushGateway#MAX_TOKENS_PER_CALL} tokens, so a batch
+     * costs a handful of requests instead of one per device. Tokens the push service rejects are
+     * removed from the registry.
+     *
+     * Returns one entry per message: null when at least one device got it (or the user has no
+     * devices), otherwise the failure to retry.
+     */
+    public List<Exception> sendPushBatch(List<PushMessage> messages) {
+        Map<Long, List<String>> tokensByUser = deviceRepository.findTokensByUserIdIn(messages.stream()
+                        .map(PushMessage::userId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.groupingBy(DeviceRepository.DeviceToken::getUserId,
+                        Collectors.mapping(DeviceRepository.DeviceToken::getToken, Collectors.toList())));
+        
+        Map<Content, List<Integer>> messagesByContent = new LinkedHashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            PushMessage message = messages.get(i);
+            messagesByContent.computeIfAbsent(new Content(message.title(), message.body()), key -> new ArrayList<>()).add(i);
         }
         
-        try {
-            // Uncomment when Firebase is configured
-            /*
-            Message message = Message.builder()
-                    .setToken(fcmToken)
-                    .setNotification(Notification.builder()
-                            .setTitle(title)
-                            .setBody(body)
-                            .build())
-                    .build();
+        boolean[] delivered = new boolean[messages.size()];
+        Exception[] failures = new Exception[messages.size()];
+        Set<String> invalidTokens = new HashSet<>();
+        
+        messagesByContent.forEach((content, indexes) -> {
+            List<String> tokens = new ArrayList<>();
+            List<Integer> owners = new ArrayList<>();
+            for (int index : indexes) {
+                List<String> userTokens = tokensByUser.getOrDefault(messages.get(index).userId(), List.of());
+                if (userTokens.isEmpty()) {
+                    delivered[index] = true;
+                }
+                for (String token : userTokens) {
+                    tokens.add(token);
+                    owners.add(index);
+                }
+            }
             
-            String response = firebaseMessaging.send(message);
-            log.info("Push notification sent: {}", response);
-            */
-            log.info("Push notification would be sent to token: {}", fcmToken);
-        } catch (Exception e) {
-            log.error("Failed to send push notification", e);
+            for (int from = 0; from < tokens.size(); from += PushGateway.MAX_TOKENS_PER_CALL) {
+                int to = Math.min(from + PushGateway.MAX_TOKENS_PER_CALL, tokens.size());
+                try {
+                    List<PushGateway.PushOutcome> outcomes = pushGateway.sendMulticast(tokens.subList(from, to), content.title(), content.body());
+                    for (int i = 0; i < outcomes.size(); i++) {
+                        int owner = owners.get(from + i);
+                        switch (outcomes.get(i)) {
+                            case DELIVERED -> delivered[owner] = true;
+                            case INVALID_TOKEN -> invalidTokens.add(tokens.get(from + i));
+                            case FAILED -> failures[owner] = new IllegalStateException("Push delivery failed");
+                        }
+                    }
+                } catch (Exception e) {
+                    log.warn("Multicast push to {} devices failed", to - from, e);
+                    for (int i = from; i < to; i++) {
+                        failures[owners.get(i)] = e;
+                    }
+                }
+            }
+        });
+        
+        if (!invalidTokens.isEmpty()) {
+            deviceService.removeInvalidTokens(invalidTokens);
+        }
+        
+        List<Exception> results = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            results.add(delivered[i] ? null : failures[i]);
         }
+        return results;
+    }
+    
+    private record Content(String title, String body) {
     }
 }
@@ -0,0 +1,121 @@
+package com.ticktick.service;
+
+import com.ticktick.dto.task.OccurrenceDTO;
+import com.ticktick.entity.Task;
+import com.ticktick.entity.TaskOccurrenceException;
+import com.ticktick.exception.BadRequestException;
+import com.ticktick.recurrence.RecurrenceExpander;
+import com.ticktick.recurrence.RecurrenceRule;
+import com.ticktick.repository.TaskOccurrenceExceptionRepository;
+import com.ticktick.repository.TaskRepository;
+import com.ticktick.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Expands recurring tasks into their occurrences for a date range. Occurrences are computed from
+ * the rule on every request and never stored; only exceptions (cancelled or materialized
+ * occurrences) are read from the database, with one query for all of the user's series.
+ */
+@Service
+@RequiredArgsConstructor
+public class OccurrenceService {
+    
+    private final TaskRepository taskRepository;
+    private final TaskOccurrenceExceptionRepository occurrenceExceptionRepository;
+    
+    @Value("${app.recurrence.max-range-days:400}")
+    private long maxRangeDays;
+    
+    @Value("${app.recurrence.max-occurrences-per-task:1000}")
+    private int maxOccurrencesPerTask;
+    
+    @Transactional(readOnly = true)
+    public List<OccurrenceDTO> getOccurrences(LocalDateTime from, LocalDateTime to, UserPrincipal currentUser) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+        if (Duration.between(from, to).toDays() > maxRangeDays) {
+            throw new BadRequestException("Range must not exceed " + maxRangeDays + " days");
+        }
+        
+        List<Task> series = taskRepository.findActiveSeriesStartingBefore(currentUser.getId(), to);
+        if (series.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<TaskOccurrenceException>> exceptionsByTask = occurrenceExceptionRepository
+                .findInRange(series.stream().map(Task::getId).collect(Collectors.toList()), from, to).stream()
+                .collect(Collectors.groupingBy(exception -> exception.getTask().getId()));
+        
+        List<OccurrenceDTO> occurrences = new ArrayList<>();
+        for (Task task : series) {
+            RecurrenceRule rule = RecurrenceRule.of(task);
+            if (rule == null) {
+                continue;
+            }
+            List<TaskOccurrenceException> exceptions = exceptionsByTask.getOrDefault(task.getId(), List.of());
+            Set<LocalDateTime> excluded = exceptions.stream()
+                    .map(TaskOccurrenceException::getOriginalStart)
+                    .collect(Collectors.toSet());
+            
+            for (LocalDateTime start : RecurrenceExpander.between(rule, task.getDueDate(), from, to, excluded, maxOccurrencesPerTask)) {
+                occurrences.add(toOccurrence(task, start));
+            }
+            for (TaskOccurrenceException exception : exceptions) {
+                if (exception.getType() == TaskOccurrenceException.Type.MODIFIED && exception.getMaterializedTask() != null) {
+                    occurrences.add(toMaterializedOccurrence(task, exception));
+                }
+            }
+        }
+        
+        occurrences.sort(Comparator.comparing(OccurrenceDTO::getOccurrenceStart).thenComparing(OccurrenceDTO::getTaskId));
+        return occurrences;
+    }
+    
+    // The occurrence at the task's due date is the task row itself; later ones exist only here
+    private OccurrenceDTO toOccurrence(Task task, LocalDateTime start) {
+        LocalDateTime startDate = task.getStartDate() != null
+                ? start.minus(Duration.between(task.getStartDate(), task.getDueDate()))
+                : null;
+        return OccurrenceDTO.builder()
+                .taskId(task.getId())
+                .occurrenceStart(start)
+                .virtual(!start.equals(task.getDueDate()))
+                .title(task.getTitle())
+                .priority(task.getPriority())
+                .status(start.equals(task.getDueDate()) ? task.getStatus() : Task.Status.TODO)
+                .dueDate(start)
+                .startDate(startDate)
+                .allDay(task.getAllDay())
+                .taskListId(task.getTaskList() != null ? task.getTaskList().getId() : null)
+                .build();
+    }
+    
+    private OccurrenceDTO toMaterializedOccurrence(Task series, TaskOccurrenceException exception) {
+        Task task = exception.getMaterializedTask();
+        return OccurrenceDTO.builder()
+                .taskId(series.getId())
+                .occurrenceStart(exception.getOriginalStart())
+                .virtual(false)
+                .materializedTaskId(task.getId())
+                .title(task.getTitle())
+                .priority(task.getPriority())
+                .status(task.getStatus())
+                .dueDate(task.getDueDate())
+                .startDate(task.getStartDate())
+                .allDay(task.getAllDay())
+                .taskListId(task.getTaskList() != null ? task.getTaskList().getId() : null)
+                .build();
+    }
+}
@@ -0,0 +1,186 @@
+package com.ticktick.service;
+
+import com.ticktick.entity.NotificationOutbox;
+import com.ticktick.entity.Reminder;
+import com.ticktick.entity.SyncChange;
+import com.ticktick.entity.User;
+import com.ticktick.repository.ReminderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sends due reminders in fixed-size batches.
+ *
+ * Each batch is claimed in its own short transaction: ids handed out by {@link ReminderScheduler}
+ * are locked with {@code FOR UPDATE SKIP LOCKED}, loaded together with their task and user,
+ * turned into notification outbox rows and marked sent with one bulk UPDATE. "Sent" therefore
+ * means durably queued; actual delivery and its retries belong to {@link NotificationOutboxService},
+ * so a slow mail server never holds a transaction here.
+ *
+ * Reminders for the same user and channel are coalesced into one digest message, including
+ * that user's reminders due within app.reminders.digest-window-seconds.
+ */
+@Slf4j
+@Component
+public class ReminderDispatcher {
+    
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    
+    private final ReminderScheduler reminderScheduler;
+    private final ReminderRepository reminderRepository;
+    private final NotificationOutboxService notificationOutbox;
+    private final TaskReadCache taskReadCache;
+    private final ChangeTracker changeTracker;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${app.reminders.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${app.reminders.max-batches-per-poll:20}")
+    private int maxBatchesPerPoll;
+    
+    @Value("${app.reminders.digest-window-seconds:120}")
+    private long digestWindowSeconds;
+    
+    public ReminderDispatcher(ReminderScheduler reminderScheduler,
+                              ReminderRepository reminderRepository,
+                              NotificationOutboxService notificationOutbox,
+                              TaskReadCache taskReadCache,
+                              ChangeTracker changeTracker,
+                              PlatformTransactionManager transactionManager) {
+        this.reminderScheduler = reminderScheduler;
+        this.reminderRepository = reminderRepository;
+        this.notificationOutbox = notificationOutbox;
+        this.taskReadCache = taskReadCache;
+        this.changeTracker = changeTracker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.reminders.poll-interval:1000}")
+    public void dispatchDueReminders() {
+        // Keep draining while batches come back full, so a peak minute is not spread over many polls
+        for (int round = 0; round < maxBatchesPerPoll; round++) {
+            List<Long> claimed = reminderScheduler.claimDue(batchSize);
+            if (claimed.isEmpty()) {
+                return;
+            }
+            
+            try {
+                int queued = transactionTemplate.execute(status -> claimBatch(claimed));
+                log.info("Queued {} due reminders", queued);
+            } catch (Exception e) {
+                // The ids stay in flight and are re-queued when their lease expires
+                log.error("Failed to claim reminder batch {}", claimed, e);
+                return;
+            }
+            
+            if (claimed.size() < batchSize) {
+                return;
+            }
+        }
+    }
+    
+    private int claimBatch(List<Long> claimed) {
+        reminderScheduler.complete(claimed);
+        
+        // Ids deleted, already sent, or locked by another node simply drop out here
+        List<Long> locked = reminderRepository.lockUnsent(claimed);
+        if (locked.isEmpty()) {
+            return 0;
+        }
+        
+        List<Reminder> reminders = new ArrayList<>(reminderRepository.findWithTaskAndUser(locked));
+        if (digestWindowSeconds > 0) {
+            reminders.addAll(claimUpcoming(reminders, locked));
+        }
+        
+        List<Long> ids = reminders.stream().map(Reminder::getId).collect(Collectors.toList());
+        reminderRepository.markSent(ids, LocalDateTime.now());
+        
+        Map<DigestKey, List<Reminder>> digests = new LinkedHashMap<>();
+        for (Reminder reminder : reminders) {
+            User user = reminder.getTask().getUser();
+            for (NotificationOutbox.Channel channel : channelsOf(reminder.getType())) {
+                digests.computeIfAbsent(new DigestKey(user.getId(), user.getEmail(), channel), key -> new ArrayList<>()).add(reminder);
+            }
+            changeTracker.recordChange(user.getId(), SyncChange.EntityType.REMINDER, reminder.getId());
+        }
+        digests.forEach(this::enqueueDigest);
+        
+        reminders.stream()
+                .map(reminder -> reminder.getTask().getUser().getId())
+                .distinct()
+                .forEach(taskReadCache::invalidate);
+        return reminders.size();
+    }
+    
+    /**
+     * Pulls in the batch users' other reminders due within the digest window, so they go out in
+     * the same message instead of one by one over the next minutes. They leave the Redis schedule
+     * after commit; a node that claims one of them first finds it locked or already sent.
+     */
+    private List<Reminder> claimUpcoming(List<Reminder> reminders, List<Long> alreadyLocked) {
+        Set<Long> userIds = reminders.stream()
+                .map(reminder -> reminder.getTask().getUser().getId())
+                .collect(Collectors.toSet());
+        List<Long> upcoming = reminderRepository.lockUnsentForUsersDueBefore(userIds,
+                        LocalDateTime.now().plusSeconds(digestWindowSeconds)).stream()
+                .filter(id -> !alreadyLocked.contains(id))
+                .collect(Collectors.toList());
+        if (upcoming.isEmpty()) {
+            return List.of();
+        }
+        reminderScheduler.unschedule(upcoming);
+        return reminderRepository.findWithTaskAndUser(upcoming);
+    }
+    
+    private void enqueueDigest(DigestKey key, List<Reminder> reminders) {
+        String recipient = key.channel() == NotificationOutbox.Channel.EMAIL ? key.email() : null;
+        
+        if (reminders.size() == 1) {
+            String message = String.format("Reminder: %s", reminders.get(0).getTask().getTitle());
+            notificationOutbox.enqueue(key.channel(), key.userId(), recipient, "Task Reminder", message);
+            return;
+        }
+        
+        reminders.sort(Comparator.comparing(Reminder::getRemindAt));
+        String subject = String.format("%d Task Reminders", reminders.size());
+        String body;
+        if (key.channel() == NotificationOutbox.Channel.EMAIL) {
+            body = reminders.stream()
+                    .map(reminder -> String.format("- %s (%s)", reminder.getTask().getTitle(),
+                            reminder.getRemindAt().format(TIME_FORMAT)))
+                    .collect(Collectors.joining("\n", "Coming up:\n", ""));
+        } else {
+            body = reminders.stream()
+                    .map(reminder -> reminder.getTask().getTitle())
+                    .collect(Collectors.joining(", "));
+        }
+        notificationOutbox.enqueue(key.channel(), key.userId(), recipient, subject, body);
+    }
+    
+    private static List<NotificationOutbox.Channel> channelsOf(Reminder.ReminderType type) {
+        return switch (type) {
+            case EMAIL -> List.of(NotificationOutbox.Channel.EMAIL);
+            case NOTIFICATION -> List.of(NotificationOutbox.Channel.PUSH);
+            case BOTH -> List.of(NotificationOutbox.Channel.EMAIL, NotificationOutbox.Channel.PUSH);
+        };
+    }
+    
+    private record DigestKey(Long userId, String email, NotificationOutbox.Channel channel) {
+    }
+}
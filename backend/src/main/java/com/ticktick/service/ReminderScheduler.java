@@ -0,0 +1,169 @@
+package com.ticktick.service;
+
+import com.ticktick.repository.ReminderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Time index of unsent reminders in a Redis sorted set ({@code reminders:due}, score = epoch
+ * second of remindAt, member = reminder id).
+ *
+ * {@link #claimDue} atomically moves due ids into {@code reminders:inflight} (score = claim time),
+ * so each id is handed to exactly one node. Ids leave the in-flight set once the dispatching
+ * transaction commits; ids whose lease expires (node died mid-dispatch) are put back, and a
+ * periodic reconcile re-indexes unsent reminders from the database in case Redis lost them.
+ * The database {@code is_sent} flag stays the source of truth, so a re-indexed reminder that
+ * was already sent is simply skipped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReminderScheduler {
+    
+    private static final String DUE_KEY = "reminders:due";
+    private static final String INFLIGHT_KEY = "reminders:inflight";
+    
+    private static final RedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) " +
+            "for _, id in ipairs(due) do " +
+            "  redis.call('ZREM', KEYS[1], id) " +
+            "  redis.call('ZADD', KEYS[2], ARGV[3], id) " +
+            "end " +
+            "return due",
+            List.class);
+    
+    // Re-indexes (score, id) pairs, skipping ids currently claimed by a node
+    private static final RedisScript<Long> REQUEUE_SCRIPT = new DefaultRedisScript<>(
+            "local added = 0 " +
+            "for i = 1, #ARGV, 2 do " +
+            "  if not redis.call('ZSCORE', KEYS[2], ARGV[i + 1]) then " +
+            "    added = added + redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1]) " +
+            "  end " +
+            "end " +
+            "return added",
+            Long.class);
+    
+    private static final int REQUEUE_CHUNK = 500;
+    
+    private final StringRedisTemplate redisTemplate;
+    private final ReminderRepository reminderRepository;
+    
+    @Value("${app.reminders.lease-seconds:300}")
+    private long leaseSeconds;
+    
+    @Value("${app.reminders.reconcile-horizon-hours:24}")
+    private long reconcileHorizonHours;
+    
+    public void schedule(Long reminderId, LocalDateTime remindAt) {
+        afterCommit(() -> redisTemplate.opsForZSet().add(DUE_KEY, reminderId.toString(), toScore(remindAt)));
+    }
+    
+    public void unschedule(Collection<Long> reminderIds) {
+        if (reminderIds.isEmpty()) {
+            return;
+        }
+        Object[] members = reminderIds.stream().map(String::valueOf).toArray();
+        afterCommit(() -> redisTemplate.opsForZSet().remove(DUE_KEY, members));
+    }
+    
+    /**
+     * Claims up to {@code limit} reminders due by now. Returned ids must be passed to
+     * {@link #complete} once they are handled.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> claimDue(int limit) {
+        long nowMillis = System.currentTimeMillis();
+        List<String> claimed = redisTemplate.execute(CLAIM_SCRIPT, List.of(DUE_KEY, INFLIGHT_KEY),
+                String.valueOf(nowMillis / 1000), String.valueOf(limit), String.valueOf(nowMillis));
+        if (claimed == null || claimed.isEmpty()) {
+            return List.of();
+        }
+        return claimed.stream().map(Long::valueOf).collect(Collectors.toList());
+    }
+    
+    /**
+     * Releases claimed ids. Deferred to after commit so a reconcile cannot re-index a reminder
+     * whose sent flag is not yet visible.
+     */
+    public void complete(Collection<Long> reminderIds) {
+        if (reminderIds.isEmpty()) {
+            return;
+        }
+        Object[] members = reminderIds.stream().map(String::valueOf).toArray();
+        afterCommit(() -> redisTemplate.opsForZSet().remove(INFLIGHT_KEY, members));
+    }
+    
+    @Scheduled(fixedDelayString = "${app.reminders.reconcile-interval:300000}")
+    @Transactional(readOnly = true)
+    public void reconcile() {
+        try {
+            long nowMillis = System.currentTimeMillis();
+            
+            // Leases that outlived their node go back to the due set right away
+            Set<String> expired = redisTemplate.opsForZSet()
+                    .rangeByScore(INFLIGHT_KEY, Double.NEGATIVE_INFINITY, nowMillis - leaseSeconds * 1000);
+            if (expired != null && !expired.isEmpty()) {
+                redisTemplate.opsForZSet().remove(INFLIGHT_KEY, expired.toArray());
+                redisTemplate.opsForZSet().add(DUE_KEY, expired.stream()
+                        .map(id -> ZSetOperations.TypedTuple.of(id, (double) (nowMillis / 1000)))
+                        .collect(Collectors.toSet()));
+                log.warn("Re-queued {} reminders whose dispatch lease expired", expired.size());
+            }
+            
+            List<String> args = new ArrayList<>();
+            for (ReminderRepository.PendingReminder reminder : reminderRepository
+                    .findPendingSchedule(LocalDateTime.now().plusHours(reconcileHorizonHours))) {
+                args.add(String.valueOf(toScore(reminder.getRemindAt())));
+                args.add(reminder.getId().toString());
+            }
+            for (int i = 0; i < args.size(); i += REQUEUE_CHUNK * 2) {
+                redisTemplate.execute(REQUEUE_SCRIPT, List.of(DUE_KEY, INFLIGHT_KEY),
+                        args.subList(i, Math.min(i + REQUEUE_CHUNK * 2, args.size())).toArray());
+            }
+        } catch (Exception e) {
+            log.error("Failed to reconcile reminder schedule", e);
+        }
+    }
+    
+    private static long toScore(LocalDateTime remindAt) {
+        return remindAt.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+    
+    private static void afterCommit(Runnable action) {
+        Runnable guarded = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.error("Failed to update reminder schedule; the next reconcile will repair it", e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guarded.run();
+                }
+            });
+        } else {
+            guarded.run();
+        }
+    }
+}
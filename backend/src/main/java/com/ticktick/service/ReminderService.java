@@ -2,20 +2,20 @@ package com.ticktick.service;
 
 import com.ticktick.dto.task.ReminderDTO;
 import com.ticktick.entity.Reminder;
+import com.ticktick.entity.SyncChange;
 import com.ticktick.entity.Task;
-import com.ticktick.entity.User;
 import com.ticktick.exception.ResourceNotFoundException;
 import com.ticktick.repository.ReminderRepository;
 import com.ticktick.repository.TaskRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -24,8 +24,9 @@ public class ReminderService {
     
     private final ReminderRepository reminderRepository;
     private final TaskRepository taskRepository;
-    private final NotificationService notificationService;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final ReminderScheduler reminderScheduler;
+    private final TaskReadCache taskReadCache;
+    private final ChangeTracker changeTracker;
     
     @Transactional
     public ReminderDTO createReminder(Long taskId, LocalDateTime remindAt, Reminder.ReminderType type, Long userId) {
@@ -44,8 +45,9 @@ public class ReminderService {
         
         reminder = reminderRepository.save(reminder);
         
-        // Schedule in Redis
-        scheduleReminder(reminder);
+        reminderScheduler.schedule(reminder.getId(), reminder.getRemindAt());
+        taskReadCache.invalidate(userId);
+        changeTracker.recordChange(userId, SyncChange.EntityType.REMINDER, reminder.getId());
         
         return mapToReminderDTO(reminder);
     }
@@ -60,56 +62,22 @@ public class ReminderService {
         }
         
         reminderRepository.delete(reminder);
+        reminderScheduler.unschedule(List.of(reminderId));
+        taskReadCache.invalidate(userId);
+        changeTracker.recordDeletion(userId, SyncChange.EntityType.REMINDER, reminderId);
     }
     
-    @Scheduled(fixedRate = 60000) // Run every minute
-    @Transactional
-    public void processReminders() {
-        LocalDateTime now = LocalDateTime.now();
-        List<Reminder> pendingReminders = reminderRepository.findPendingReminders(now);
-        
-        log.info("Processing {} pending reminders", pendingReminders.size());
-        
-        for (Reminder reminder : pendingReminders) {
-            try {
-                sendReminder(reminder);
-                reminder.setIsSent(true);
-                reminder.setSentAt(LocalDateTime.now());
-                reminderRepository.save(reminder);
-            } catch (Exception e) {
-                log.error("Failed to send reminder {}", reminder.getId(), e);
-            }
-        }
-    }
-    
-    private void sendReminder(Reminder reminder) {
-        Task task = reminder.getTask();
-        User user = task.getUser();
-        
-        String message = String.format("Reminder: %s", task.getTitle());
-        
-        switch (reminder.getType()) {
-            case EMAIL:
-                notificationService.sendEmailNotification(user.getEmail(), "Task Reminder", message);
-                break;
-            case NOTIFICATION:
-                notificationService.sendPushNotification(user.getFcmToken(), "Task Reminder", message);
-                break;
-            case BOTH:
-                notificationService.sendEmailNotification(user.getEmail(), "Task Reminder", message);
-                notificationService.sendPushNotification(user.getFcmToken(), "Task Reminder", message);
-                break;
-        }
-    }
-    
-    private void scheduleReminder(Reminder reminder) {
-        String key = "reminder:" + reminder.getId();
-        redisTemplate.opsForValue().set(key, reminder);
+    @Transactional(readOnly = true)
+    public List<ReminderDTO> getRemindersByIds(Collection<Long> reminderIds) {
+        return reminderRepository.findAllById(reminderIds).stream()
+                .map(this::mapToReminderDTO)
+                .collect(Collectors.toList());
     }
     
     private ReminderDTO mapToReminderDTO(Reminder reminder) {
         return ReminderDTO.builder()
                 .id(reminder.getId())
+                .taskId(reminder.getTask().getId())
                 .remindAt(reminder.getRemindAt())
                 .type(reminder.getType())
                 .isSent(reminder.getIsSent())
@@ -0,0 +1,71 @@
+package com.ticktick.service;
+
+import com.ticktick.dto.search.TaskSearchHitDTO;
+import com.ticktick.dto.search.TaskSearchResultDTO;
+import com.ticktick.exception.BadRequestException;
+import com.ticktick.repository.TaskRepository;
+import com.ticktick.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+    
+    private final TaskRepository taskRepository;
+    
+    @Value("${app.search.max-page-size:100}")
+    private int maxPageSize;
+    
+    @Value("${app.search.max-offset:10000}")
+    private long maxOffset;
+    
+    @Transactional(readOnly = true)
+    public TaskSearchResultDTO searchTasks(String query, int page, int size, UserPrincipal currentUser) {
+        if (!StringUtils.hasText(query)) {
+            throw new BadRequestException("Search query is required");
+        }
+        if (page < 0 || size < 1) {
+            throw new BadRequestException("Page must not be negative and size must be positive");
+        }
+        
+        int pageSize = Math.min(size, maxPageSize);
+        // Deep pages make the database rank and skip every earlier hit, so they are cut off
+        long offset = (long) page * pageSize;
+        if (offset > maxOffset) {
+            throw new BadRequestException("Only the first " + maxOffset + " search results can be paged through");
+        }
+        String trimmed = query.trim();
+        List<TaskRepository.TaskSearchHit> hits = taskRepository.searchRanked(currentUser.getId(), trimmed,
+                TaskRepository.prefixQuery(trimmed), TaskRepository.titlePattern(trimmed), pageSize + 1, offset);
+        boolean hasMore = hits.size() > pageSize;
+        
+        return TaskSearchResultDTO.builder()
+                .query(query)
+                .hits(hits.stream().limit(pageSize).map(this::mapToHitDTO).collect(Collectors.toList()))
+                .page(page)
+                .size(pageSize)
+                .hasMore(hasMore)
+                .build();
+    }
+    
+    private TaskSearchHitDTO mapToHitDTO(TaskRepository.TaskSearchHit hit) {
+        return TaskSearchHitDTO.builder()
+                .id(hit.getId())
+                .title(hit.getTitle())
+                .priority(hit.getPriority())
+                .status(hit.getStatus())
+                .dueDate(hit.getDueDate())
+                .taskListId(hit.getTaskListId())
+                .rank(hit.getRank())
+                .titleHighlight(hit.getTitleHighlight())
+                .snippet(hit.getSnippet())
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.ticktick.service;
+
+import com.ticktick.dto.sync.SyncResponse;
+import com.ticktick.dto.sync.TombstoneDTO;
+import com.ticktick.dto.task.TagDTO;
+import com.ticktick.entity.SyncChange;
+import com.ticktick.entity.SyncVersion;
+import com.ticktick.repository.SyncChangeRepository;
+import com.ticktick.repository.SyncVersionRepository;
+import com.ticktick.repository.TagRepository;
+import com.ticktick.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class SyncService {
+    
+    private final SyncVersionRepository syncVersionRepository;
+    private final SyncChangeRepository syncChangeRepository;
+    private final TaskService taskService;
+    private final TaskListService taskListService;
+    private final HabitService habitService;
+    private final ReminderService reminderService;
+    private final TagRepository tagRepository;
+    
+    // One snapshot for the version and the delta, so no change can slip between them
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public SyncResponse getChanges(long since, UserPrincipal currentUser) {
+        Long userId = currentUser.getId();
+        SyncVersion syncVersion = syncVersionRepository.findById(userId).orElse(null);
+        long currentVersion = syncVersion != null ? syncVersion.getVersion() : 0L;
+        
+        boolean deltaUnavailable = since <= 0
+                || since > currentVersion
+                || (syncVersion != null && since < syncVersion.getTombstoneFloor());
+        if (deltaUnavailable) {
+            return SyncResponse.builder()
+                    .version(currentVersion)
+                    .fullResync(true)
+                    .build();
+        }
+        
+        Map<SyncChange.EntityType, List<Long>> changedIds = new EnumMap<>(SyncChange.EntityType.class);
+        List<TombstoneDTO> deleted = new ArrayList<>();
+        for (SyncChange change : syncChangeRepository.findByUserIdAndVersionGreaterThanOrderByVersionAsc(userId, since)) {
+            if (change.getDeleted()) {
+                deleted.add(TombstoneDTO.builder()
+                        .type(change.getEntityType())
+                        .id(change.getEntityId())
+                        .build());
+            } else {
+                changedIds.computeIfAbsent(change.getEntityType(), type -> new ArrayList<>()).add(change.getEntityId());
+            }
+        }
+        
+        return SyncResponse.builder()
+                .version(currentVersion)
+                .fullResync(false)
+                .tasks(taskService.getTasksByIds(ids(changedIds, SyncChange.EntityType.TASK)))
+                .taskLists(taskListService.getTaskListsByIds(ids(changedIds, SyncChange.EntityType.LIST)))
+                .tags(tagRepository.findAllById(ids(changedIds, SyncChange.EntityType.TAG)).stream()
+                        .map(tag -> TagDTO.builder()
+                                .id(tag.getId())
+                                .name(tag.getName())
+                                .color(tag.getColor())
+                                .createdAt(tag.getCreatedAt())
+                                .build())
+                        .collect(Collectors.toList()))
+                .habits(habitService.getHabitsByIds(ids(changedIds, SyncChange.EntityType.HABIT)))
+                .reminders(reminderService.getRemindersByIds(ids(changedIds, SyncChange.EntityType.REMINDER)))
+                .deleted(deleted)
+                .build();
+    }
+    
+    private static List<Long> ids(Map<SyncChange.EntityType, List<Long>> changedIds, SyncChange.EntityType type) {
+        return changedIds.getOrDefault(type, List.of());
+    }
+}
@@ -0,0 +1,109 @@
+package com.ticktick.service;
+
+import com.ticktick.dto.task.TagDTO;
+import com.ticktick.dto.task.TagRequest;
+import com.ticktick.entity.SyncChange;
+import com.ticktick.entity.Tag;
+import com.ticktick.entity.Task;
+import com.ticktick.entity.User;
+import com.ticktick.exception.BadRequestException;
+import com.ticktick.exception.ResourceNotFoundException;
+import com.ticktick.repository.TagRepository;
+import com.ticktick.repository.UserRepository;
+import com.ticktick.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class TagService {
+    
+    private final TagRepository tagRepository;
+    private final UserRepository userRepository;
+    private final ChangeTracker changeTracker;
+    private final TypeaheadService typeaheadService;
+    private final TaskReadCache taskReadCache;
+    
+    @Transactional
+    public TagDTO createTag(TagRequest request, UserPrincipal currentUser) {
+        User user = getUserById(currentUser.getId());
+        if (tagRepository.findByNameAndUser(request.getName(), user).isPresent()) {
+            throw new BadRequestException("Tag '" + request.getName() + "' already exists");
+        }
+        
+        Tag tag = tagRepository.save(Tag.builder()
+                .name(request.getName())
+                .color(request.getColor())
+                .user(user)
+                .build());
+        changeTracker.recordChange(user.getId(), SyncChange.EntityType.TAG, tag.getId());
+        typeaheadService.tagChanged(user.getId(), tag.getId(), tag.getName());
+        return mapToTagDTO(tag);
+    }
+    
+    @Transactional
+    public TagDTO updateTag(Long id, TagRequest request, UserPrincipal currentUser) {
+        User user = getUserById(currentUser.getId());
+        Tag tag = tagRepository.findByIdAndUser(id, user)
+                .orElseThrow(() -> new ResourceNotFoundException("Tag", "id", id));
+        tagRepository.findByNameAndUser(request.getName(), user)
+                .filter(other -> !other.getId().equals(id))
+                .ifPresent(other -> {
+                    throw new BadRequestException("Tag '" + request.getName() + "' already exists");
+                });
+        
+        tag.setName(request.getName());
+        tag.setColor(request.getColor());
+        tag = tagRepository.save(tag);
+        changeTracker.recordChange(user.getId(), SyncChange.EntityType.TAG, tag.getId());
+        // Task responses embed their tags, so synced copies of the tagged tasks are stale too
+        tag.getTasks().forEach(task -> changeTracker.recordChange(user.getId(), SyncChange.EntityType.TASK, task.getId()));
+        typeaheadService.tagChanged(user.getId(), tag.getId(), tag.getName());
+        taskReadCache.invalidate(user.getId());
+        return mapToTagDTO(tag);
+    }
+    
+    @Transactional
+    public void deleteTag(Long id, UserPrincipal currentUser) {
+        User user = getUserById(currentUser.getId());
+        Tag tag = tagRepository.findByIdAndUser(id, user)
+                .orElseThrow(() -> new ResourceNotFoundException("Tag", "id", id));
+        
+        // Tasks own the join table, so the links are removed from their side
+        List<Task> tasks = new ArrayList<>(tag.getTasks());
+        tasks.forEach(task -> {
+            task.getTags().remove(tag);
+            changeTracker.recordChange(user.getId(), SyncChange.EntityType.TASK, task.getId());
+        });
+        tagRepository.delete(tag);
+        changeTracker.recordDeletion(user.getId(), SyncChange.EntityType.TAG, id);
+        typeaheadService.tagRemoved(user.getId(), id);
+        taskReadCache.invalidate(user.getId());
+    }
+    
+    @Transactional(readOnly = true)
+    public List<TagDTO> getTags(UserPrincipal currentUser) {
+        return tagRepository.findByUserIdOrderByNameAsc(currentUser.getId()).stream()
+                .map(this::mapToTagDTO)
+                .collect(Collectors.toList());
+    }
+    
+    private User getUserById(Long userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+    }
+    
+    private TagDTO mapToTagDTO(Tag tag) {
+        return TagDTO.builder()
+                .id(tag.getId())
+                .name(tag.getName())
+                .color(tag.getColor())
+                .createdAt(tag.getCreatedAt())
+                .build();
+    }
+}
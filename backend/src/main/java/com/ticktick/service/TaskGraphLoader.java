@@ -0,0 +1,79 @@
+package com.ticktick.service;
+
+import com.ticktick.entity.Task;
+import com.ticktick.repository.TaskListRepository;
+import com.ticktick.repository.TaskRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Materializes everything {@code mapToTaskDTO} touches for a set of tasks (tags, reminders,
+ * attachments, task lists and the full subtask tree) with a fixed number of queries per
+ * subtask level instead of several lazy loads per task.
+ *
+ * Must be called inside a transaction; the loaded collections live in the current persistence context.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskGraphLoader {
+
+    // Keeps IN lists well below the PostgreSQL bind parameter limit
+    private static final int CHUNK_SIZE = 1000;
+
+    private final TaskRepository taskRepository;
+    private final TaskListRepository taskListRepository;
+
+    public <T extends Collection<Task>> T load(T tasks) {
+        Set<Long> visited = new HashSet<>();
+        Set<Long> taskListIds = new HashSet<>();
+        List<Task> level = new ArrayList<>(tasks);
+
+        while (!level.isEmpty()) {
+            List<Long> ids = new ArrayList<>();
+            for (Task task : level) {
+                if (visited.add(task.getId())) {
+                    ids.add(task.getId());
+                    if (task.getTaskList() != null) {
+                        taskListIds.add(task.getTaskList().getId());
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            fetchInChunks(ids, taskRepository::fetchTagsByIdIn);
+            fetchInChunks(ids, taskRepository::fetchRemindersByIdIn);
+            fetchInChunks(ids, taskRepository::fetchAttachmentsByIdIn);
+            List<Task> parents = fetchInChunks(ids, taskRepository::fetchSubtasksByIdIn);
+
+            List<Task> nextLevel = new ArrayList<>();
+            for (Task parent : parents) {
+                nextLevel.addAll(parent.getSubtasks());
+            }
+            level = nextLevel;
+        }
+
+        // Pulls the lists into the persistence context so the lazy proxies resolve without SQL
+        if (!taskListIds.isEmpty()) {
+            fetchInChunks(new ArrayList<>(taskListIds), taskListRepository::findAllById);
+        }
+
+        return tasks;
+    }
+
+    private <R> List<R> fetchInChunks(List<Long> ids, Function<List<Long>, List<R>> query) {
+        List<R> result = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += CHUNK_SIZE) {
+            result.addAll(query.apply(ids.subList(i, Math.min(i + CHUNK_SIZE, ids.size()))));
+        }
+        return result;
+    }
+}
@@ -3,6 +3,8 @@ package com.ticktick.service;
 import com.ticktick.dto.task.TaskListDTO;
 import com.ticktick.dto.task.TaskListRequest;
 import com.ticktick.entity.Folder;
+import com.ticktick.entity.Task;
+import com.ticktick.entity.SyncChange;
 import com.ticktick.entity.TaskList;
 import com.ticktick.entity.User;
 import com.ticktick.exception.BadRequestException;
@@ -16,7 +18,10 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,6 +32,9 @@ public class TaskListService {
     private final FolderRepository folderRepository;
     private final UserRepository userRepository;
     private final TaskRepository taskRepository;
+    private final TypeaheadService typeaheadService;
+    private final TaskReadCache taskReadCache;
+    private final ChangeTracker changeTracker;
     
     @Transactional
     public TaskListDTO createTaskList(TaskListRequest request, UserPrincipal currentUser) {
@@ -48,7 +56,10 @@ public class TaskListService {
         }
         
         taskList = taskListRepository.save(taskList);
-        return mapToTaskListDTO(taskList);
+        typeaheadService.taskListChanged(user.getId(), taskList.getId(), taskList.getName());
+        taskReadCache.invalidate(user.getId());
+        changeTracker.recordChange(user.getId(), SyncChange.EntityType.LIST, taskList.getId());
+        return mapToTaskListDTOs(List.of(taskList)).get(0);
     }
     
     @Transactional
@@ -72,7 +83,10 @@ public class TaskListService {
         }
         
         taskList = taskListRepository.save(taskList);
-        return mapToTaskListDTO(taskList);
+        typeaheadService.taskListChanged(user.getId(), taskList.getId(), taskList.getName());
+        taskReadCache.invalidate(user.getId());
+        changeTracker.recordChange(user.getId(), SyncChange.EntityType.LIST, taskList.getId());
+        return mapToTaskListDTOs(List.of(taskList)).get(0);
     }
     
     @Transactional
@@ -81,7 +95,15 @@ public class TaskListService {
         TaskList taskList = taskListRepository.findByIdAndUser(id, user)
                 .orElseThrow(() -> new ResourceNotFoundException("TaskList", "id", id));
         
+        // Tasks in the list are removed by cascade
+        taskList.getTasks().forEach(task -> {
+            typeaheadService.taskRemoved(user.getId(), task.getId());
+            changeTracker.recordTaskTreeDeletion(user.getId(), task);
+        });
+        typeaheadService.taskListRemoved(user.getId(), taskList.getId());
+        changeTracker.recordDeletion(user.getId(), SyncChange.EntityType.LIST, taskList.getId());
         taskListRepository.delete(taskList);
+        taskReadCache.invalidate(user.getId());
     }
     
     @Transactional(readOnly = true)
@@ -90,14 +112,24 @@ public class TaskListService {
         TaskList taskList = taskListRepository.findByIdAndUser(id, user)
                 .orElseThrow(() -> new ResourceNotFoundException("TaskList", "id", id));
         
-        return mapToTaskListDTO(taskList);
+        return mapToTaskListDTOs(List.of(taskList)).get(0);
     }
     
     @Transactional(readOnly = true)
     public List<TaskListDTO> getAllTaskLists(UserPrincipal currentUser) {
         User user = getUserById(currentUser.getId());
         List<TaskList> taskLists = taskListRepository.findByUserOrderBySortOrderAsc(user);
-        return taskLists.stream().map(this::mapToTaskListDTO).collect(Collectors.toList());
+        return mapToTaskListDTOs(taskLists);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<TaskListDTO> getTaskListsByUserId(Long userId) {
+        return mapToTaskListDTOs(taskListRepository.findByUserIdOrderBySortOrderAsc(userId));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<TaskListDTO> getTaskListsByIds(Collection<Long> taskListIds) {
+        return mapToTaskListDTOs(taskListRepository.findAllById(taskListIds));
     }
     
     private User getUserById(Long userId) {
@@ -105,8 +137,24 @@ public class TaskListService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
     }
     
-    private TaskListDTO mapToTaskListDTO(TaskList taskList) {
-        Long taskCount = taskRepository.countByUserAndTaskListId(taskList.getUser(), taskList.getId());
+    // Counts for all the lists come from a single grouped query
+    private List<TaskListDTO> mapToTaskListDTOs(List<TaskList> taskLists) {
+        if (taskLists.isEmpty()) {
+            return List.of();
+        }
+        List<Long> taskListIds = taskLists.stream().map(TaskList::getId).collect(Collectors.toList());
+        Map<Long, TaskRepository.ListCount> counts = taskRepository.countByTaskListIds(taskListIds, Task.Status.COMPLETED)
+                .stream()
+                .collect(Collectors.toMap(TaskRepository.ListCount::getTaskListId, Function.identity()));
+        
+        return taskLists.stream()
+                .map(taskList -> mapToTaskListDTO(taskList, counts.get(taskList.getId())))
+                .collect(Collectors.toList());
+    }
+    
+    private TaskListDTO mapToTaskListDTO(TaskList taskList, TaskRepository.ListCount count) {
+        int openCount = count != null ? count.getOpen().intValue() : 0;
+        int completedCount = count != null ? count.getCompleted().intValue() : 0;
         
         return TaskListDTO.builder()
                 .id(taskList.getId())
@@ -118,7 +166,9 @@ public class TaskListService {
                 .isShared(taskList.getIsShared())
                 .folderId(taskList.getFolder() != null ? taskList.getFolder().getId() : null)
                 .folderName(taskList.getFolder() != null ? taskList.getFolder().getName() : null)
-                .taskCount(taskCount.intValue())
+                .taskCount(openCount + completedCount)
+                .openCount(openCount)
+                .completedCount(completedCount)
                 .createdAt(taskList.getCreatedAt())
                 .updatedAt(taskList.getUpdatedAt())
                 .build();
@@ -0,0 +1,121 @@
+package com.ticktick.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Per-user read-through cache for task list responses, stored in Redis.
+ *
+ * Entries are keyed by the user's current version number. A mutation bumps the version after its
+ * transaction commits, which makes every older entry unreachable without deleting anything; stale
+ * entries then age out through their TTL. Because the version is read before the data is loaded,
+ * a result computed concurrently with a write can only ever be stored under an outdated version.
+ */
+@Slf4j
+@Service
+public class TaskReadCache {
+    
+    private static final String KEY_PREFIX = "taskcache:";
+    
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter errors;
+    
+    @Value("${app.cache.tasks.ttl:600}")
+    private long ttlSeconds;
+    
+    @Value("${app.cache.tasks.max-entry-bytes:524288}")
+    private int maxEntryBytes;
+    
+    public TaskReadCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.hits = meterRegistry.counter("tasks.read.cache", "result", "hit");
+        this.misses = meterRegistry.counter("tasks.read.cache", "result", "miss");
+        this.errors = meterRegistry.counter("tasks.read.cache", "result", "error");
+    }
+    
+    public <T> T get(Long userId, String view, TypeReference<T> type, Supplier<T> loader) {
+        String key;
+        try {
+            String version = redisTemplate.opsForValue().get(versionKey(userId));
+            key = KEY_PREFIX + userId + ":" + (version != null ? version : "0") + ":" + view;
+            String cached = redisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                hits.increment();
+                return objectMapper.readValue(cached, type);
+            }
+        } catch (Exception e) {
+            // Redis trouble must never fail a read, fall back to the database
+            errors.increment();
+            log.warn("Task cache lookup failed for user {}: {}", userId, e.getMessage());
+            return loader.get();
+        }
+        
+        misses.increment();
+        T value = loader.get();
+        store(userId, key, value);
+        return value;
+    }
+    
+    /**
+     * Invalidates every cached view for the user. Inside a transaction the version is bumped
+     * only after commit, so readers never cache data that may still roll back.
+     */
+    public void invalidate(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpVersion(userId);
+                }
+            });
+        } else {
+            bumpVersion(userId);
+        }
+    }
+    
+    private void store(Long userId, String key, Object value) {
+        try {
+            String json = objectMapper.writeValueAsString(value);
+            if (json.length() > maxEntryBytes) {
+                return;
+            }
+            redisTemplate.opsForValue().set(key, json, Duration.ofSeconds(ttlSeconds));
+            // The version counter must outlive its entries, or an expired counter could restart
+            // at a number that still has live entries
+            redisTemplate.expire(versionKey(userId), Duration.ofSeconds(ttlSeconds * 2));
+        } catch (Exception e) {
+            errors.increment();
+            log.warn("Failed to cache {}: {}", key, e.getMessage());
+        }
+    }
+    
+    private void bumpVersion(Long userId) {
+        try {
+            String key = versionKey(userId);
+            redisTemplate.opsForValue().increment(key);
+            redisTemplate.expire(key, Duration.ofSeconds(ttlSeconds * 2));
+        } catch (Exception e) {
+            errors.increment();
+            log.error("Failed to invalidate task cache for user {}", userId, e);
+        }
+    }
+    
+    private static String versionKey(Long userId) {
+        return KEY_PREFIX + userId + ":version";
+    }
+}
@@ -2,19 +2,29 @@ package com.ticktick.service;
 
 import com.ticktick.dto.task.*;
 import com.ticktick.entity.*;
+import com.ticktick.event.TaskChangedEvent;
 import com.ticktick.exception.BadRequestException;
 import com.ticktick.exception.ResourceNotFoundException;
+import com.ticktick.recurrence.RecurrenceExpander;
+import com.ticktick.recurrence.RecurrenceRule;
 import com.ticktick.repository.*;
 import com.ticktick.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -28,7 +38,19 @@ public class TaskService {
     private final TagRepository tagRepository;
     private final UserRepository userRepository;
     private final ReminderRepository reminderRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskGraphLoader taskGraphLoader;
+    private final TypeaheadService typeaheadService;
+    private final TaskReadCache taskReadCache;
+    private final ChangeTracker changeTracker;
+    private final ReminderScheduler reminderScheduler;
+    private final TaskOccurrenceExceptionRepository occurrenceExceptionRepository;
+    
+    @Value("${app.tasks.default-page-size:50}")
+    private int defaultPageSize;
+    
+    @Value("${app.tasks.max-page-size:200}")
+    private int maxPageSize;
     
     @Transactional
     public TaskDTO createTask(TaskRequest request, UserPrincipal currentUser) {
@@ -51,6 +73,7 @@ public class TaskService {
                 .recurrenceDays(request.getRecurrenceDays())
                 .user(user)
                 .build();
+        applyRecurrenceRule(task, request.getRecurrenceRule());
         
         // Set task list if provided
         if (request.getTaskListId() != null) {
@@ -82,8 +105,11 @@ public class TaskService {
         
         task = taskRepository.save(task);
         
-        // Notify via WebSocket
-        notifyTaskChange("create", task, user);
+        // Pushed to clients after commit
+        eventPublisher.publishEvent(TaskChangedEvent.created(user.getId(), task.getId(), TaskChangedEvent.snapshot(task)));
+        changeTracker.recordChange(user.getId(), SyncChange.EntityType.TASK, task.getId());
+        taskReadCache.invalidate(user.getId());
+        typeaheadService.taskChanged(user.getId(), task.getId(), task.getTitle());
         
         return mapToTaskDTO(task);
     }
@@ -98,6 +124,9 @@ public class TaskService {
             throw new BadRequestException("Task does not belong to current user");
         }
         
+        Map<String, Object> before = TaskChangedEvent.snapshot(task);
+        LocalDateTime previousDueDate = task.getDueDate();
+        
         // Update fields
         task.setTitle(request.getTitle());
         task.setDescription(request.getDescription());
@@ -115,6 +144,7 @@ public class TaskService {
         task.setRecurrenceInterval(request.getRecurrenceInterval());
         task.setRecurrenceEndDate(request.getRecurrenceEndDate());
         task.setRecurrenceDays(request.getRecurrenceDays());
+        applyRecurrenceRule(task, request.getRecurrenceRule());
         
         // Update task list
         if (request.getTaskListId() != null) {
@@ -136,20 +166,22 @@ public class TaskService {
         
         // Handle status change to COMPLETED
         if (request.getStatus() == Task.Status.COMPLETED && task.getCompletedAt() == null) {
-            task.setCompletedAt(LocalDateTime.now());
-            
-            // Handle recurring tasks
-            if (task.getIsRecurring()) {
-                createNextRecurringTask(task);
+            // A recurring task only completes its current occurrence, unless that was the last one
+            if (!completeCurrentOccurrence(task, user.getId())) {
+                task.setCompletedAt(LocalDateTime.now());
             }
         } else if (request.getStatus() != Task.Status.COMPLETED) {
             task.setCompletedAt(null);
         }
         
+        shiftPendingReminders(task, previousDueDate, user.getId());
         task = taskRepository.save(task);
         
-        // Notify via WebSocket
-        notifyTaskChange("update", task, user);
+        // Pushed to clients after commit
+        eventPublisher.publishEvent(TaskChangedEvent.updated(user.getId(), task.getId(), before, TaskChangedEvent.snapshot(task)));
+        changeTracker.recordChange(user.getId(), SyncChange.EntityType.TASK, task.getId());
+        taskReadCache.invalidate(user.getId());
+        typeaheadService.taskChanged(user.getId(), task.getId(), task.getTitle());
         
         return mapToTaskDTO(task);
     }
@@ -164,10 +196,14 @@ public class TaskService {
             throw new BadRequestException("Task does not belong to current user");
         }
         
+        removeFromTypeahead(task, user.getId());
+        changeTracker.recordTaskTreeDeletion(user.getId(), task);
+        reminderScheduler.unschedule(collectReminderIds(task, new ArrayList<>()));
         taskRepository.delete(task);
         
-        // Notify via WebSocket
-        notifyTaskChange("delete", task, user);
+        // Pushed to clients after commit
+        eventPublisher.publishEvent(TaskChangedEvent.deleted(user.getId(), task.getId()));
+        taskReadCache.invalidate(user.getId());
     }
     
     @Transactional(readOnly = true)
@@ -180,20 +216,21 @@ public class TaskService {
             throw new BadRequestException("Task does not belong to current user");
         }
         
+        taskGraphLoader.load(List.of(task));
         return mapToTaskDTO(task);
     }
     
     @Transactional(readOnly = true)
     public List<TaskDTO> getAllTasks(UserPrincipal currentUser) {
         User user = getUserById(currentUser.getId());
-        List<Task> tasks = taskRepository.findByUserAndParentTaskIsNullOrderBySortOrderAsc(user);
+        List<Task> tasks = taskGraphLoader.load(taskRepository.findByUserAndParentTaskIsNullOrderBySortOrderAsc(user));
         return tasks.stream().map(this::mapToTaskDTO).collect(Collectors.toList());
     }
     
     @Transactional(readOnly = true)
     public List<TaskDTO> getTasksByList(Long listId, UserPrincipal currentUser) {
         User user = getUserById(currentUser.getId());
-        List<Task> tasks = taskRepository.findByUserAndTaskListIdOrderBySortOrderAsc(user, listId);
+        List<Task> tasks = taskGraphLoader.load(taskRepository.findByUserAndTaskListIdOrderBySortOrderAsc(user, listId));
         return tasks.stream().map(this::mapToTaskDTO).collect(Collectors.toList());
     }
     
@@ -203,100 +240,359 @@ public class TaskService {
         LocalDateTime startOfDay = LocalDateTime.now().toLocalDate().atStartOfDay();
         LocalDateTime endOfDay = startOfDay.plusDays(1);
         
-        List<Task> tasks = taskRepository.findByUserAndDueDateBetween(user, startOfDay, endOfDay);
+        List<Task> tasks = taskGraphLoader.load(taskRepository.findByUserAndDueDateBetween(user, startOfDay, endOfDay));
         return tasks.stream().map(this::mapToTaskDTO).collect(Collectors.toList());
     }
     
     @Transactional(readOnly = true)
     public List<TaskDTO> getOverdueTasks(UserPrincipal currentUser) {
         User user = getUserById(currentUser.getId());
-        List<Task> tasks = taskRepository.findOverdueTasks(user, LocalDateTime.now());
+        List<Task> tasks = taskGraphLoader.load(taskRepository.findOverdueTasks(user, LocalDateTime.now()));
         return tasks.stream().map(this::mapToTaskDTO).collect(Collectors.toList());
     }
     
     @Transactional(readOnly = true)
     public List<TaskDTO> searchTasks(String query, UserPrincipal currentUser) {
         User user = getUserById(currentUser.getId());
-        List<Task> tasks = taskRepository.searchTasks(user, query);
+        List<Task> tasks = taskGraphLoader.load(taskRepository.searchTasks(
+                user.getId(), query, TaskRepository.prefixQuery(query), TaskRepository.titlePattern(query)));
+        return tasks.stream().map(this::mapToTaskDTO).collect(Collectors.toList());
+    }
+    
+    /**
+     * Loads tasks by id without an ownership check; callers must only pass ids of the user's own tasks.
+     */
+    @Transactional(readOnly = true)
+    public List<TaskDTO> getTasksByIds(Collection<Long> taskIds) {
+        List<Task> tasks = taskGraphLoader.load(taskRepository.findAllById(taskIds));
         return tasks.stream().map(this::mapToTaskDTO).collect(Collectors.toList());
     }
     
-    private void createNextRecurringTask(Task originalTask) {
-        if (originalTask.getRecurrenceType() == null) {
+    @Transactional(readOnly = true)
+    public TaskPage<TaskDTO> getAllTasks(String cursor, Integer limit, UserPrincipal currentUser) {
+        User user = getUserById(currentUser.getId());
+        TaskCursor after = TaskCursor.decode(cursor);
+        int pageSize = resolvePageSize(limit);
+        List<Task> tasks = taskRepository.findTopLevelPage(
+                user, after.sortOrder(), after.id(), PageRequest.of(0, pageSize + 1));
+        return toTaskPage(tasks, pageSize);
+    }
+    
+    @Transactional(readOnly = true)
+    public TaskPage<TaskDTO> getTasksByList(Long listId, String cursor, Integer limit, UserPrincipal currentUser) {
+        User user = getUserById(currentUser.getId());
+        TaskCursor after = TaskCursor.decode(cursor);
+        int pageSize = resolvePageSize(limit);
+        List<Task> tasks = taskRepository.findByTaskListPage(
+                user, listId, after.sortOrder(), after.id(), PageRequest.of(0, pageSize + 1));
+        return toTaskPage(tasks, pageSize);
+    }
+    
+    @Transactional(readOnly = true)
+    public TaskPage<TaskDTO> searchTasks(String query, String cursor, Integer limit, UserPrincipal currentUser) {
+        User user = getUserById(currentUser.getId());
+        TaskCursor after = TaskCursor.decode(cursor);
+        int pageSize = resolvePageSize(limit);
+        List<Task> tasks = taskRepository.searchTasksPage(user.getId(), query,
+                TaskRepository.prefixQuery(query), TaskRepository.titlePattern(query),
+                after.sortOrder(), after.id(), pageSize + 1);
+        return toTaskPage(tasks, pageSize);
+    }
+    
+    @Transactional(readOnly = true)
+    public TaskPage<TaskSummaryDTO> getTaskSummaries(String cursor, Integer limit, UserPrincipal currentUser) {
+        TaskCursor after = TaskCursor.decode(cursor);
+        int pageSize = resolveSummaryPageSize(cursor, limit);
+        return toSummaryPage(taskRepository.findTopLevelSummaries(
+                currentUser.getId(), after.sortOrder(), after.id(), pageSize + 1), pageSize);
+    }
+    
+    @Transactional(readOnly = true)
+    public TaskPage<TaskSummaryDTO> getTaskSummariesByList(Long listId, String cursor, Integer limit,
+                                                           UserPrincipal currentUser) {
+        TaskCursor after = TaskCursor.decode(cursor);
+        int pageSize = resolveSummaryPageSize(cursor, limit);
+        return toSummaryPage(taskRepository.findSummariesByTaskList(
+                currentUser.getId(), listId, after.sortOrder(), after.id(), pageSize + 1), pageSize);
+    }
+    
+    @Transactional(readOnly = true)
+    public TaskPage<TaskSummaryDTO> searchTaskSummaries(String query, String cursor, Integer limit,
+                                                        UserPrincipal currentUser) {
+        TaskCursor after = TaskCursor.decode(cursor);
+        int pageSize = resolveSummaryPageSize(cursor, limit);
+        return toSummaryPage(taskRepository.searchSummaries(currentUser.getId(), query,
+                TaskRepository.prefixQuery(query), TaskRepository.titlePattern(query),
+                after.sortOrder(), after.id(), pageSize + 1), pageSize);
+    }
+    
+    // Summaries are cheap enough to return unpaged when the client asks for neither cursor nor limit
+    private int resolveSummaryPageSize(String cursor, Integer limit) {
+        if (cursor == null && limit == null) {
+            return Integer.MAX_VALUE - 1;
+        }
+        return resolvePageSize(limit);
+    }
+    
+    private TaskPage<TaskSummaryDTO> toSummaryPage(List<TaskRepository.TaskSummary> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<TaskRepository.TaskSummary> items = hasMore ? rows.subList(0, pageSize) : rows;
+        TaskRepository.TaskSummary last = hasMore ? items.get(items.size() - 1) : null;
+        
+        return TaskPage.<TaskSummaryDTO>builder()
+                .items(items.stream().map(this::mapToTaskSummaryDTO).collect(Collectors.toList()))
+                .nextCursor(last != null ? new TaskCursor(
+                        last.getSortOrder() != null ? last.getSortOrder() : 0, last.getId()).encode() : null)
+                .build();
+    }
+    
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new BadRequestException("Limit must be positive");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+    
+    // Expects one row more than the page size so the presence of a next page is known without a COUNT
+    private TaskPage<TaskDTO> toTaskPage(List<Task> tasks, int pageSize) {
+        boolean hasMore = tasks.size() > pageSize;
+        List<Task> items = taskGraphLoader.load(hasMore ? tasks.subList(0, pageSize) : tasks);
+        
+        return TaskPage.<TaskDTO>builder()
+                .items(items.stream().map(this::mapToTaskDTO).collect(Collectors.toList()))
+                .nextCursor(hasMore ? TaskCursor.after(items.get(items.size() - 1)).encode() : null)
+                .build();
+    }
+    
+    /**
+     * Splits one occurrence off a recurring task into a task of its own, so it can be edited
+     * without touching the rest of the series. Materializing the current occurrence returns
+     * the recurring task itself, which already is that occurrence.
+     */
+    @Transactional
+    public TaskDTO materializeOccurrence(Long taskId, LocalDateTime occurrenceStart, UserPrincipal currentUser) {
+        User user = getUserById(currentUser.getId());
+        Task series = getSeries(taskId, user);
+        if (occurrenceStart.equals(series.getDueDate())) {
+            return mapToTaskDTO(series);
+        }
+        
+        TaskOccurrenceException exception = occurrenceExceptionRepository
+                .findByTaskIdAndOriginalStart(series.getId(), occurrenceStart)
+                .orElse(null);
+        if (exception != null) {
+            if (exception.getType() == TaskOccurrenceException.Type.CANCELLED || exception.getMaterializedTask() == null) {
+                throw new BadRequestException("Occurrence at " + occurrenceStart + " was removed");
+            }
+            return mapToTaskDTO(exception.getMaterializedTask());
+        }
+        requireUpcomingOccurrence(series, occurrenceStart);
+        
+        Task occurrence = materialize(series, occurrenceStart, Task.Status.TODO, user.getId());
+        return mapToTaskDTO(occurrence);
+    }
+    
+    /**
+     * Removes a single occurrence from a recurring task. Cancelling the current occurrence moves
+     * the task on to the next one; a materialized occurrence is deleted along with it.
+     */
+    @Transactional
+    public void cancelOccurrence(Long taskId, LocalDateTime occurrenceStart, UserPrincipal currentUser) {
+        User user = getUserById(currentUser.getId());
+        Task series = getSeries(taskId, user);
+        
+        if (occurrenceStart.equals(series.getDueDate())) {
+            Map<String, Object> before = TaskChangedEvent.snapshot(series);
+            LocalDateTime previousDueDate = series.getDueDate();
+            if (!advanceSeries(series, RecurrenceRule.of(series))) {
+                throw new BadRequestException("Cannot cancel the last occurrence; delete the task instead");
+            }
+            shiftPendingReminders(series, previousDueDate, user.getId());
+            
+            eventPublisher.publishEvent(TaskChangedEvent.updated(user.getId(), series.getId(), before, TaskChangedEvent.snapshot(series)));
+            changeTracker.recordChange(user.getId(), SyncChange.EntityType.TASK, series.getId());
+            taskReadCache.invalidate(user.getId());
             return;
         }
         
-        LocalDateTime nextDueDate = calculateNextDueDate(originalTask);
-        
-        if (nextDueDate != null) {
-            Task nextTask = Task.builder()
-                    .title(originalTask.getTitle())
-                    .description(originalTask.getDescription())
-                    .notes(originalTask.getNotes())
-                    .priority(originalTask.getPriority())
-                    .status(Task.Status.TODO)
-                    .dueDate(nextDueDate)
-                    .allDay(originalTask.getAllDay())
-                    .isRecurring(true)
-                    .recurrenceType(originalTask.getRecurrenceType())
-                    .recurrenceInterval(originalTask.getRecurrenceInterval())
-                    .recurrenceEndDate(originalTask.getRecurrenceEndDate())
-                    .recurrenceDays(originalTask.getRecurrenceDays())
-                    .user(originalTask.getUser())
-                    .taskList(originalTask.getTaskList())
-                    .tags(new HashSet<>(originalTask.getTags()))
+        TaskOccurrenceException exception = occurrenceExceptionRepository
+                .findByTaskIdAndOriginalStart(series.getId(), occurrenceStart)
+                .orElse(null);
+        if (exception == null) {
+            requireUpcomingOccurrence(series, occurrenceStart);
+            exception = TaskOccurrenceException.builder()
+                    .task(series)
+                    .originalStart(occurrenceStart)
                     .build();
-            
-            taskRepository.save(nextTask);
         }
+        
+        Task materialized = exception.getMaterializedTask();
+        exception.setType(TaskOccurrenceException.Type.CANCELLED);
+        exception.setMaterializedTask(null);
+        occurrenceExceptionRepository.save(exception);
+        
+        if (materialized != null) {
+            removeFromTypeahead(materialized, user.getId());
+            changeTracker.recordTaskTreeDeletion(user.getId(), materialized);
+            reminderScheduler.unschedule(collectReminderIds(materialized, new ArrayList<>()));
+            taskRepository.delete(materialized);
+            eventPublisher.publishEvent(TaskChangedEvent.deleted(user.getId(), materialized.getId()));
+        }
+        changeTracker.recordChange(user.getId(), SyncChange.EntityType.TASK, series.getId());
+        taskReadCache.invalidate(user.getId());
     }
     
-    private LocalDateTime calculateNextDueDate(Task task) {
-        if (task.getDueDate() == null) {
-            return null;
+    private Task getSeries(Long taskId, User user) {
+        Task series = taskRepository.findById(taskId)
+                .orElseThrow(() -> new ResourceNotFoundException("Task", "id", taskId));
+        if (!series.getUser().getId().equals(user.getId())) {
+            throw new BadRequestException("Task does not belong to current user");
         }
-        
-        LocalDateTime nextDate = task.getDueDate();
-        int interval = task.getRecurrenceInterval() != null ? task.getRecurrenceInterval() : 1;
-        
-        switch (task.getRecurrenceType()) {
-            case DAILY:
-                nextDate = nextDate.plusDays(interval);
-                break;
-            case WEEKLY:
-                nextDate = nextDate.plusWeeks(interval);
-                break;
-            case MONTHLY:
-                nextDate = nextDate.plusMonths(interval);
-                break;
-            case YEARLY:
-                nextDate = nextDate.plusYears(interval);
-                break;
-            default:
-                return null;
+        if (RecurrenceRule.of(series) == null || series.getDueDate() == null || series.getCompletedAt() != null) {
+            throw new BadRequestException("Task " + taskId + " is not an active recurring task");
+        }
+        return series;
+    }
+    
+    // Occurrences before the current one are history; only upcoming ones can be split off or cancelled
+    private void requireUpcomingOccurrence(Task series, LocalDateTime occurrenceStart) {
+        if (occurrenceStart.isBefore(series.getDueDate())
+                || !RecurrenceExpander.isOccurrence(RecurrenceRule.of(series), series.getDueDate(), occurrenceStart)) {
+            throw new BadRequestException("Task " + series.getId() + " has no upcoming occurrence at " + occurrenceStart);
+        }
+    }
+    
+    /**
+     * Completes the current occurrence as a task of its own and moves the recurring task on to the
+     * next occurrence. Returns false when there is no next occurrence.
+     */
+    private boolean completeCurrentOccurrence(Task series, Long userId) {
+        RecurrenceRule rule = RecurrenceRule.of(series);
+        if (rule == null || series.getDueDate() == null) {
+            return false;
+        }
+        LocalDateTime occurrenceStart = series.getDueDate();
+        if (!advanceSeries(series, rule)) {
+            return false;
         }
         
-        // Check if next date exceeds recurrence end date
-        if (task.getRecurrenceEndDate() != null && nextDate.isAfter(task.getRecurrenceEndDate())) {
-            return null;
+        materialize(series, occurrenceStart, Task.Status.COMPLETED, userId);
+        series.setStatus(Task.Status.TODO);
+        series.setCompletedAt(null);
+        return true;
+    }
+    
+    /**
+     * Moves a recurring task's due date (and start date with it) to its next occurrence, skipping
+     * cancelled and materialized ones. A COUNT in the rule is reduced by the occurrences passed over.
+     */
+    private boolean advanceSeries(Task series, RecurrenceRule rule) {
+        LocalDateTime current = series.getDueDate();
+        Set<LocalDateTime> exclusions = new HashSet<>(occurrenceExceptionRepository.findStartsAfter(series.getId(), current));
+        LocalDateTime next = RecurrenceExpander.next(rule, current, current, exclusions);
+        if (next == null) {
+            return false;
         }
         
-        return nextDate;
+        if (rule.count() != null) {
+            int passed = RecurrenceExpander.countThrough(rule, current, next) - 1;
+            series.setRecurrenceRule(rule.withCount(rule.count() - passed).format());
+        }
+        if (series.getStartDate() != null) {
+            series.setStartDate(series.getStartDate().plus(Duration.between(current, next)));
+        }
+        series.setDueDate(next);
+        return true;
+    }
+    
+    /**
+     * Copies a recurring task into a standalone task for one occurrence and records the exception,
+     * so the occurrence is no longer generated from the rule.
+     */
+    private Task materialize(Task series, LocalDateTime occurrenceStart, Task.Status status, Long userId) {
+        LocalDateTime startDate = series.getStartDate() != null
+                ? occurrenceStart.minus(Duration.between(series.getStartDate(), series.getDueDate()))
+                : null;
+        Task occurrence = Task.builder()
+                .title(series.getTitle())
+                .description(series.getDescription())
+                .notes(series.getNotes())
+                .priority(series.getPriority())
+                .status(status)
+                .completedAt(status == Task.Status.COMPLETED ? LocalDateTime.now() : null)
+                .dueDate(occurrenceStart)
+                .startDate(startDate)
+                .allDay(series.getAllDay())
+                .sortOrder(series.getSortOrder())
+                .user(series.getUser())
+                .taskList(series.getTaskList())
+                .tags(new HashSet<>(series.getTags()))
+                .build();
+        occurrence = taskRepository.save(occurrence);
+        
+        TaskOccurrenceException exception = occurrenceExceptionRepository
+                .findByTaskIdAndOriginalStart(series.getId(), occurrenceStart)
+                .orElseGet(() -> TaskOccurrenceException.builder()
+                        .task(series)
+                        .originalStart(occurrenceStart)
+                        .build());
+        exception.setType(TaskOccurrenceException.Type.MODIFIED);
+        exception.setMaterializedTask(occurrence);
+        occurrenceExceptionRepository.save(exception);
+        
+        eventPublisher.publishEvent(TaskChangedEvent.created(userId, occurrence.getId(), TaskChangedEvent.snapshot(occurrence)));
+        changeTracker.recordChange(userId, SyncChange.EntityType.TASK, occurrence.getId());
+        taskReadCache.invalidate(userId);
+        typeaheadService.taskChanged(userId, occurrence.getId(), occurrence.getTitle());
+        return occurrence;
     }
     
-    private void notifyTaskChange(String action, Task task, User user) {
-        try {
-            TaskDTO taskDTO = mapToTaskDTO(task);
-            messagingTemplate.convertAndSendToUser(
-                    user.getId().toString(),
-                    "/queue/tasks",
-                    new TaskUpdateMessage(action, taskDTO)
-            );
-        } catch (Exception e) {
-            log.error("Failed to send WebSocket notification", e);
+    // Stores the RRULE in canonical form; the legacy type is filled in for clients that only read that
+    private void applyRecurrenceRule(Task task, String recurrenceRule) {
+        if (recurrenceRule == null || recurrenceRule.isBlank()) {
+            task.setRecurrenceRule(null);
+            return;
+        }
+        RecurrenceRule rule = RecurrenceRule.parse(recurrenceRule);
+        task.setRecurrenceRule(rule.format());
+        if (task.getRecurrenceType() == null) {
+            task.setRecurrenceType(rule.toRecurrenceType());
         }
     }
     
+    /**
+     * Reminders are stored as absolute times; when the due date moves, unsent ones move with it
+     * so they keep their offset from the due date.
+     */
+    private void shiftPendingReminders(Task task, LocalDateTime previousDueDate, Long userId) {
+        if (previousDueDate == null || task.getDueDate() == null || previousDueDate.equals(task.getDueDate())) {
+            return;
+        }
+        Duration shift = Duration.between(previousDueDate, task.getDueDate());
+        for (Reminder reminder : task.getReminders()) {
+            if (!reminder.getIsSent()) {
+                reminder.setRemindAt(reminder.getRemindAt().plus(shift));
+                reminderScheduler.schedule(reminder.getId(), reminder.getRemindAt());
+                changeTracker.recordChange(userId, SyncChange.EntityType.REMINDER, reminder.getId());
+            }
+        }
+    }
+    
+    private List<Long> collectReminderIds(Task task, List<Long> reminderIds) {
+        task.getReminders().forEach(reminder -> reminderIds.add(reminder.getId()));
+        task.getSubtasks().forEach(subtask -> collectReminderIds(subtask, reminderIds));
+        return reminderIds;
+    }
+    
+    // Subtasks are removed by cascade, so their index entries go with the parent
+    private void removeFromTypeahead(Task task, Long userId) {
+        typeaheadService.taskRemoved(userId, task.getId());
+        task.getSubtasks().forEach(subtask -> removeFromTypeahead(subtask, userId));
+    }
+    
     private User getUserById(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
@@ -315,6 +611,7 @@ public class TaskService {
         Set<ReminderDTO> reminderDTOs = task.getReminders().stream()
                 .map(reminder -> ReminderDTO.builder()
                         .id(reminder.getId())
+                        .taskId(task.getId())
                         .remindAt(reminder.getRemindAt())
                         .type(reminder.getType())
                         .isSent(reminder.getIsSent())
@@ -355,6 +652,7 @@ public class TaskService {
                 .recurrenceInterval(task.getRecurrenceInterval())
                 .recurrenceEndDate(task.getRecurrenceEndDate())
                 .recurrenceDays(task.getRecurrenceDays())
+                .recurrenceRule(task.getRecurrenceRule())
                 .taskListId(task.getTaskList() != null ? task.getTaskList().getId() : null)
                 .taskListName(task.getTaskList() != null ? task.getTaskList().getName() : null)
                 .parentTaskId(task.getParentTask() != null ? task.getParentTask().getId() : null)
@@ -369,6 +667,19 @@ public class TaskService {
                 .build();
     }
     
-    // Inner class for WebSocket messages
-    public record TaskUpdateMessage(String action, TaskDTO task) {}
+    private TaskSummaryDTO mapToTaskSummaryDTO(TaskRepository.TaskSummary summary) {
+        Set<Long> tagIds = summary.getTagIds() == null ? Set.of() : Arrays.stream(summary.getTagIds().split(","))
+                .map(Long::valueOf)
+                .collect(Collectors.toSet());
+        
+        return TaskSummaryDTO.builder()
+                .id(summary.getId())
+                .title(summary.getTitle())
+                .priority(summary.getPriority())
+                .status(summary.getStatus())
+                .dueDate(summary.getDueDate())
+                .taskListId(summary.getTaskListId())
+                .tagIds(tagIds)
+                .build();
+    }
 }
@@ -0,0 +1,308 @@
+package com.ticktick.service;
+
+import com.ticktick.dto.task.SuggestionDTO;
+import com.ticktick.event.SuggestionChangedEvent;
+import com.ticktick.repository.TagRepository;
+import com.ticktick.repository.TaskListRepository;
+import com.ticktick.repository.TaskRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Per-user prefix index over task titles, tag names and list names for as-you-type suggestions.
+ *
+ * An index is built from the database on the user's first request and then kept current by the
+ * same service methods that change tasks, lists and tags. Their changes are applied once the
+ * transaction commits, so rolled back changes never reach the index. Indexes are held through soft
+ * references in a bounded LRU map, so the JVM may drop them under memory pressure and they are
+ * rebuilt on demand. Suggestions from a loaded index never touch the database, not even for a
+ * transaction; only a build reads it, in a read-only transaction of its own.
+ */
+@Slf4j
+@Service
+public class TypeaheadService {
+    
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_CANDIDATES = 200;
+    private static final int BUILD_LOCK_STRIPES = 64;
+    
+    private final TaskRepository taskRepository;
+    private final TaskListRepository taskListRepository;
+    private final TagRepository tagRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    // One build per user at a time, without a lock object per user
+    private final Object[] buildLocks = createBuildLocks();
+    
+    @Value("${app.typeahead.max-users:10000}")
+    private int maxUsers;
+    
+    private Map<Long, SoftReference<UserIndex>> indexes;
+    
+    public TypeaheadService(TaskRepository taskRepository,
+                            TaskListRepository taskListRepository,
+                            TagRepository tagRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager) {
+        this.taskRepository = taskRepository;
+        this.taskListRepository = taskListRepository;
+        this.tagRepository = tagRepository;
+        this.eventPublisher = eventPublisher;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    @PostConstruct
+    void init() {
+        indexes = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SoftReference<UserIndex>> eldest) {
+                return size() > maxUsers;
+            }
+        });
+    }
+    
+    public List<SuggestionDTO> suggest(Long userId, String prefix, int limit) {
+        List<String> queryTokens = tokenize(prefix);
+        if (queryTokens.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        return getOrBuild(userId).suggest(normalize(prefix), queryTokens, limit);
+    }
+    
+    public void taskChanged(Long userId, Long taskId, String title) {
+        publish(userId, SuggestionDTO.Type.TASK, taskId, title);
+    }
+    
+    public void taskRemoved(Long userId, Long taskId) {
+        publish(userId, SuggestionDTO.Type.TASK, taskId, null);
+    }
+    
+    public void taskListChanged(Long userId, Long taskListId, String name) {
+        publish(userId, SuggestionDTO.Type.LIST, taskListId, name);
+    }
+    
+    public void taskListRemoved(Long userId, Long taskListId) {
+        publish(userId, SuggestionDTO.Type.LIST, taskListId, null);
+    }
+    
+    public void tagChanged(Long userId, Long tagId, String name) {
+        publish(userId, SuggestionDTO.Type.TAG, tagId, name);
+    }
+    
+    public void tagRemoved(Long userId, Long tagId) {
+        publish(userId, SuggestionDTO.Type.TAG, tagId, null);
+    }
+    
+    private void publish(Long userId, SuggestionDTO.Type type, Long id, String text) {
+        eventPublisher.publishEvent(new SuggestionChangedEvent(userId, type, id, text));
+    }
+    
+    // Only indexes that are loaded or being built are patched; unloaded ones pick the change up when built
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSuggestionChanged(SuggestionChangedEvent event) {
+        SoftReference<UserIndex> ref = indexes.get(event.userId());
+        UserIndex index = ref != null ? ref.get() : null;
+        if (index == null) {
+            return;
+        }
+        if (event.text() == null) {
+            index.remove(event.type(), event.id());
+        } else {
+            index.put(event.type(), event.id(), event.text());
+        }
+    }
+    
+    /**
+     * The empty index is registered before the database is read, so changes committed while it is
+     * being built are applied to it; rows read from the database never overwrite those.
+     */
+    private UserIndex getOrBuild(Long userId) {
+        UserIndex index = loaded(userId);
+        if (index != null && index.isReady()) {
+            return index;
+        }
+        
+        synchronized (buildLocks[Math.floorMod(userId.hashCode(), BUILD_LOCK_STRIPES)]) {
+            index = loaded(userId);
+            if (index != null && index.isReady()) {
+                return index;
+            }
+            
+            long start = System.nanoTime();
+            UserIndex built = new UserIndex();
+            indexes.put(userId, new SoftReference<>(built));
+            try {
+                // One snapshot for the three reads
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    taskListRepository.findIdAndNameByUserId(userId)
+                            .forEach(row -> built.load(SuggestionDTO.Type.LIST, (Long) row[0], (String) row[1]));
+                    tagRepository.findIdAndNameByUserId(userId)
+                            .forEach(row -> built.load(SuggestionDTO.Type.TAG, (Long) row[0], (String) row[1]));
+                    taskRepository.findIdAndTitleByUserId(userId)
+                            .forEach(row -> built.load(SuggestionDTO.Type.TASK, (Long) row[0], (String) row[1]));
+                });
+            } catch (RuntimeException e) {
+                indexes.remove(userId);
+                throw e;
+            }
+            built.markReady();
+            
+            log.debug("Built typeahead index for user {} in {} ms", userId, (System.nanoTime() - start) / 1_000_000);
+            return built;
+        }
+    }
+    
+    private UserIndex loaded(Long userId) {
+        SoftReference<UserIndex> ref = indexes.get(userId);
+        return ref != null ? ref.get() : null;
+    }
+    
+    private static Object[] createBuildLocks() {
+        Object[] locks = new Object[BUILD_LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+    
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+    
+    private record Entry(SuggestionDTO.Type type, Long id, String text, String normalized) {}
+    
+    private record Key(SuggestionDTO.Type type, Long id) {}
+    
+    private static final class UserIndex {
+        
+        // Sorted token map: every token sharing a prefix is one contiguous range
+        private final NavigableMap<String, Set<Key>> tokens = new TreeMap<>();
+        private final Map<Key, Entry> entries = new HashMap<>();
+        
+        // Items changed while the index was being built; null once it is ready
+        private Set<Key> changedDuringBuild = new HashSet<>();
+        
+        synchronized boolean isReady() {
+            return changedDuringBuild == null;
+        }
+        
+        synchronized void markReady() {
+            changedDuringBuild = null;
+        }
+        
+        // A row read from the database, older than any change already applied for the same item
+        synchronized void load(SuggestionDTO.Type type, Long id, String text) {
+            Key key = new Key(type, id);
+            if (changedDuringBuild == null || !changedDuringBuild.contains(key)) {
+                index(key, text);
+            }
+        }
+        
+        synchronized void put(SuggestionDTO.Type type, Long id, String text) {
+            Key key = new Key(type, id);
+            if (changedDuringBuild != null) {
+                changedDuringBuild.add(key);
+            }
+            index(key, text);
+        }
+        
+        synchronized void remove(SuggestionDTO.Type type, Long id) {
+            Key key = new Key(type, id);
+            if (changedDuringBuild != null) {
+                changedDuringBuild.add(key);
+            }
+            removeTokens(key);
+        }
+        
+        private void index(Key key, String text) {
+            removeTokens(key);
+            Entry entry = new Entry(key.type(), key.id(), text, normalize(text));
+            entries.put(key, entry);
+            for (String token : tokenize(text)) {
+                tokens.computeIfAbsent(token, t -> new HashSet<>()).add(key);
+            }
+        }
+        
+        private void removeTokens(Key key) {
+            Entry previous = entries.remove(key);
+            if (previous == null) {
+                return;
+            }
+            for (String token : tokenize(previous.text())) {
+                Set<Key> keys = tokens.get(token);
+                if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                    tokens.remove(token);
+                }
+            }
+        }
+        
+        // The last query token is matched as a prefix, earlier tokens must appear in the text
+        synchronized List<SuggestionDTO> suggest(String query, List<String> queryTokens, int limit) {
+            String prefix = queryTokens.get(queryTokens.size() - 1);
+            List<String> required = queryTokens.subList(0, queryTokens.size() - 1);
+            
+            Set<Key> seen = new HashSet<>();
+            List<Entry> candidates = new ArrayList<>();
+            for (Map.Entry<String, Set<Key>> match : tokens.tailMap(prefix, true).entrySet()) {
+                if (!match.getKey().startsWith(prefix) || candidates.size() >= MAX_CANDIDATES) {
+                    break;
+                }
+                for (Key key : match.getValue()) {
+                    Entry entry = entries.get(key);
+                    if (seen.add(key) && required.stream().allMatch(entry.normalized()::contains)) {
+                        candidates.add(entry);
+                    }
+                }
+            }
+            
+            candidates.sort(Comparator
+                    .comparing((Entry entry) -> !entry.normalized().startsWith(query))
+                    .thenComparing(Entry::type)
+                    .thenComparingInt(entry -> entry.text().length()));
+            
+            return candidates.stream()
+                    .limit(limit)
+                    .map(entry -> SuggestionDTO.builder()
+                            .type(entry.type())
+                            .id(entry.id())
+                            .text(entry.text())
+                            .build())
+                    .collect(Collectors.toList());
+        }
+    }
+}
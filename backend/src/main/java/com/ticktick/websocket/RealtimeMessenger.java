@@ -0,0 +1,119 @@
+package com.ticktick.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Single entry point for pushing STOMP messages to clients.
+ *
+ * In {@code simple} mode messages go straight to this node's in-memory broker. In {@code redis}
+ * mode they are published on a shared channel and every node (including this one) delivers them
+ * to the sessions it holds, so a user connected to any instance receives them.
+ */
+@Slf4j
+@Component
+public class RealtimeMessenger {
+    
+    public static final String RELAY_CHANNEL = "ws:relay";
+    
+    private final SimpMessagingTemplate messagingTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final boolean redisRelay;
+    
+    public RealtimeMessenger(SimpMessagingTemplate messagingTemplate,
+                             StringRedisTemplate redisTemplate,
+                             ObjectMapper objectMapper,
+                             WebSocketSessionRegistry sessionRegistry,
+                             @Value("${app.websocket.relay:simple}") String relay) {
+        this.messagingTemplate = messagingTemplate;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.sessionRegistry = sessionRegistry;
+        this.redisRelay = "redis".equalsIgnoreCase(relay);
+    }
+    
+    public void sendToUser(String user, String destination, Object payload) {
+        if (!sessionRegistry.hasSessions(user)) {
+            return;
+        }
+        byte[] json = serialize(destination, payload);
+        if (json != null) {
+            sendJson(user, destination, json);
+        }
+    }
+    
+    /**
+     * Sends an already serialized JSON payload, so callers that measure or reuse the
+     * bytes do not pay for serialization twice.
+     */
+    public void sendJsonToUser(String user, String destination, byte[] json) {
+        if (sessionRegistry.hasSessions(user)) {
+            sendJson(user, destination, json);
+        }
+    }
+    
+    public void sendToTopic(String destination, Object payload) {
+        byte[] json = serialize(destination, payload);
+        if (json != null) {
+            sendJson(null, destination, json);
+        }
+    }
+    
+    /**
+     * Delivers an envelope received from the relay channel to the sessions held by this node.
+     * Sending to a user with no local session is a no-op in the simple broker.
+     */
+    void deliverLocally(RelayEnvelope envelope) {
+        deliver(envelope.user(), envelope.destination(), envelope.payload().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private void sendJson(String user, String destination, byte[] json) {
+        if (redisRelay) {
+            publish(new RelayEnvelope(user, destination, new String(json, StandardCharsets.UTF_8)));
+        } else {
+            deliver(user, destination, json);
+        }
+    }
+    
+    private void deliver(String user, String destination, byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        String target = user != null
+                ? messagingTemplate.getUserDestinationPrefix() + user + destination
+                : destination;
+        messagingTemplate.send(target, MessageBuilder.createMessage(json, accessor.getMessageHeaders()));
+    }
+    
+    private byte[] serialize(String destination, Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (Exception e) {
+            log.error("Failed to serialize WebSocket message for {}", destination, e);
+            return null;
+        }
+    }
+    
+    private void publish(RelayEnvelope envelope) {
+        try {
+            redisTemplate.convertAndSend(RELAY_CHANNEL, objectMapper.writeValueAsString(envelope));
+        } catch (Exception e) {
+            log.error("Failed to publish WebSocket message to {}", envelope.destination(), e);
+        }
+    }
+    
+    record RelayEnvelope(String user, String destination, String payload) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.ticktick.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+/**
+ * Receives envelopes published by any node and hands them to the local simple broker.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RedisRelayListener implements MessageListener {
+    
+    private final RealtimeMessenger messenger;
+    private final ObjectMapper objectMapper;
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            messenger.deliverLocally(objectMapper.readValue(message.getBody(), RealtimeMessenger.RelayEnvelope.class));
+        } catch (Exception e) {
+            log.error("Failed to deliver relayed WebSocket message", e);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.ticktick.websocket;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticktick.config.AsyncConfig;
+import com.ticktick.config.LaneExecutor;
+import com.ticktick.event.TaskChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Buffers task changes per user for a short window and pushes them as one frame.
+ * Changes arrive as {@link TaskChangedEvent}s after the mutating transaction commits and are
+ * handed to the user's realtime lane, so each user's changes are merged in publication order.
+ *
+ * Repeated changes to the same task inside the window collapse into a single entry, updates
+ * carry only the fields that differ from the state before the first change, and a task created
+ * and deleted within the window is never sent at all.
+ */
+@Slf4j
+@Component
+public class TaskEventAggregator {
+    
+    public static final String DESTINATION = "/queue/tasks";
+    
+    private final RealtimeMessenger messenger;
+    private final ObjectMapper objectMapper;
+    private final TaskScheduler taskScheduler;
+    private final LaneExecutor lanes;
+    private final long windowMillis;
+    private final Map<Long, PendingBatch> pending = new ConcurrentHashMap<>();
+    
+    private final Counter frames;
+    private final Counter bytes;
+    private final Counter coalesced;
+    
+    public TaskEventAggregator(RealtimeMessenger messenger,
+                               ObjectMapper objectMapper,
+                               TaskScheduler taskScheduler,
+                               MeterRegistry meterRegistry,
+                               @Qualifier(AsyncConfig.REALTIME_EXECUTOR) LaneExecutor lanes,
+                               @Value("${app.realtime.coalesce-window-ms:200}") long windowMillis) {
+        this.messenger = messenger;
+        this.objectMapper = objectMapper;
+        this.taskScheduler = taskScheduler;
+        this.lanes = lanes;
+        this.windowMillis = windowMillis;
+        this.frames = meterRegistry.counter("realtime.frames");
+        this.bytes = meterRegistry.counter("realtime.bytes");
+        this.coalesced = meterRegistry.counter("realtime.events.coalesced");
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTaskChanged(TaskChangedEvent event) {
+        Op op = switch (event.type()) {
+            case CREATED -> Op.CREATE;
+            case UPDATED -> Op.UPDATE;
+            case DELETED -> Op.DELETE;
+        };
+        PendingChange change = new PendingChange(op, event.before(), event.after());
+        lanes.execute(event.userId(), () -> add(event.userId(), event.taskId(), change));
+    }
+    
+    private void add(Long userId, Long taskId, PendingChange change) {
+        if (windowMillis <= 0) {
+            PendingBatch batch = new PendingBatch();
+            batch.merge(taskId, change);
+            send(userId, batch);
+            return;
+        }
+        pending.compute(userId, (key, batch) -> {
+            if (batch == null) {
+                batch = new PendingBatch();
+                taskScheduler.schedule(() -> flush(userId), Instant.now().plusMillis(windowMillis));
+            } else {
+                coalesced.increment();
+            }
+            batch.merge(taskId, change);
+            return batch;
+        });
+    }
+    
+    private void flush(Long userId) {
+        PendingBatch batch = pending.remove(userId);
+        if (batch != null) {
+            send(userId, batch);
+        }
+    }
+    
+    private void send(Long userId, PendingBatch batch) {
+        List<ChangeFrame> changes = batch.toFrames();
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(new BatchFrame("batch", changes));
+            messenger.sendJsonToUser(userId.toString(), DESTINATION, json);
+            frames.increment();
+            bytes.increment(json.length);
+        } catch (Exception e) {
+            log.error("Failed to send task events to user {}", userId, e);
+        }
+    }
+    
+    private enum Op { CREATE, UPDATE, DELETE }
+    
+    private record PendingChange(Op op, Map<String, Object> before, Map<String, Object> after) {
+    }
+    
+    /** Only touched inside {@code pending.compute} or after removal from the map, so never concurrently. */
+    private static class PendingBatch {
+        
+        private final Map<Long, PendingChange> changes = new LinkedHashMap<>();
+        
+        void merge(Long taskId, PendingChange change) {
+            PendingChange existing = changes.get(taskId);
+            if (existing == null) {
+                changes.put(taskId, change);
+            } else if (change.op() == Op.DELETE) {
+                if (existing.op() == Op.CREATE) {
+                    changes.remove(taskId);
+                } else {
+                    changes.put(taskId, change);
+                }
+            } else if (change.op() == Op.UPDATE && existing.op() != Op.DELETE) {
+                // Keep the original baseline so the diff spans the whole window
+                changes.put(taskId, new PendingChange(existing.op(), existing.before(), change.after()));
+            } else {
+                changes.put(taskId, change);
+            }
+        }
+        
+        List<ChangeFrame> toFrames() {
+            List<ChangeFrame> frames = new ArrayList<>(changes.size());
+            changes.forEach((taskId, change) -> {
+                switch (change.op()) {
+                    case CREATE -> frames.add(new ChangeFrame("create", taskId, change.after()));
+                    case DELETE -> frames.add(new ChangeFrame("delete", taskId, null));
+                    case UPDATE -> {
+                        Map<String, Object> diff = diff(change.before(), change.after());
+                        if (!diff.isEmpty()) {
+                            frames.add(new ChangeFrame("update", taskId, diff));
+                        }
+                    }
+                }
+            });
+            return frames;
+        }
+        
+        private static Map<String, Object> diff(Map<String, Object> before, Map<String, Object> after) {
+            Map<String, Object> diff = new LinkedHashMap<>();
+            after.forEach((field, value) -> {
+                if (!Objects.equals(before.get(field), value)) {
+                    diff.put(field, value);
+                }
+            });
+            return diff;
+        }
+    }
+    
+    record BatchFrame(String type, List<ChangeFrame> changes) {
+    }
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record ChangeFrame(String op, Long id, Map<String, Object> fields) {
+    }
+}
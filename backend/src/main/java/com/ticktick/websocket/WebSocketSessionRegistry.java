@@ -0,0 +1,158 @@
+package com.ticktick.websocket;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which users have open STOMP sessions and on which node.
+ *
+ * Local sessions are always kept in memory. With the Redis relay each user also has a hash
+ * {@code ws:sessions:<user>} of sessionId to nodeId shared by all nodes; every node refreshes
+ * a heartbeat key and the TTL of the hashes it contributes to, and drops entries owned by nodes
+ * whose heartbeat has expired, so a crashed node's sessions age out.
+ */
+@Slf4j
+@Component
+public class WebSocketSessionRegistry {
+    
+    private static final String SESSIONS_KEY_PREFIX = "ws:sessions:";
+    private static final String NODE_KEY_PREFIX = "ws:node:";
+    
+    private final StringRedisTemplate redisTemplate;
+    private final boolean redisRelay;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Set<String>> localSessions = new ConcurrentHashMap<>();
+    
+    @Value("${app.websocket.registry-ttl:60}")
+    private long registryTtlSeconds;
+    
+    public WebSocketSessionRegistry(StringRedisTemplate redisTemplate,
+                                    @Value("${app.websocket.relay:simple}") String relay) {
+        this.redisTemplate = redisTemplate;
+        this.redisRelay = "redis".equalsIgnoreCase(relay);
+    }
+    
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String user = userOf(event.getUser());
+        if (user == null) {
+            return;
+        }
+        String sessionId = StompHeaderAccessor.wrap(event.getMessage()).getSessionId();
+        localSessions.computeIfAbsent(user, key -> ConcurrentHashMap.newKeySet()).add(sessionId);
+        if (redisRelay) {
+            try {
+                Duration ttl = Duration.ofSeconds(registryTtlSeconds);
+                String key = SESSIONS_KEY_PREFIX + user;
+                // The node key must exist before other nodes can see this session, or they would prune it
+                redisTemplate.opsForValue().set(NODE_KEY_PREFIX + nodeId, "1", ttl);
+                redisTemplate.opsForHash().put(key, sessionId, nodeId);
+                redisTemplate.expire(key, ttl);
+            } catch (Exception e) {
+                log.warn("Failed to register WebSocket session for user {}", user, e);
+            }
+        }
+    }
+    
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        String user = userOf(event.getUser());
+        if (user == null) {
+            return;
+        }
+        localSessions.computeIfPresent(user, (key, sessions) -> {
+            sessions.remove(event.getSessionId());
+            return sessions.isEmpty() ? null : sessions;
+        });
+        if (redisRelay) {
+            try {
+                redisTemplate.opsForHash().delete(SESSIONS_KEY_PREFIX + user, event.getSessionId());
+            } catch (Exception e) {
+                log.warn("Failed to unregister WebSocket session for user {}", user, e);
+            }
+        }
+    }
+    
+    /**
+     * Whether the user has a session on any node. Errs on the side of {@code true} when
+     * the shared registry cannot be reached, so messages are never dropped because of it.
+     */
+    public boolean hasSessions(String user) {
+        if (localSessions.containsKey(user)) {
+            return true;
+        }
+        if (!redisRelay) {
+            return false;
+        }
+        try {
+            return redisTemplate.opsForHash().size(SESSIONS_KEY_PREFIX + user) > 0;
+        } catch (Exception e) {
+            log.warn("Failed to read WebSocket session registry", e);
+            return true;
+        }
+    }
+    
+    public int getLocalUserCount() {
+        return localSessions.size();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.websocket.heartbeat-interval:15000}")
+    public void heartbeat() {
+        if (!redisRelay) {
+            return;
+        }
+        try {
+            Duration ttl = Duration.ofSeconds(registryTtlSeconds);
+            redisTemplate.opsForValue().set(NODE_KEY_PREFIX + nodeId, "1", ttl);
+            for (String user : localSessions.keySet()) {
+                String key = SESSIONS_KEY_PREFIX + user;
+                pruneDeadNodes(key);
+                redisTemplate.expire(key, ttl);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh WebSocket session registry", e);
+        }
+    }
+    
+    @PreDestroy
+    public void unregisterNode() {
+        if (!redisRelay) {
+            return;
+        }
+        try {
+            localSessions.forEach((user, sessions) ->
+                    redisTemplate.opsForHash().delete(SESSIONS_KEY_PREFIX + user, sessions.toArray()));
+            redisTemplate.delete(NODE_KEY_PREFIX + nodeId);
+        } catch (Exception e) {
+            log.warn("Failed to unregister node {} from WebSocket session registry", nodeId, e);
+        }
+    }
+    
+    private void pruneDeadNodes(String key) {
+        Map<Object, Object> sessions = redisTemplate.opsForHash().entries(key);
+        sessions.forEach((sessionId, owner) -> {
+            if (!nodeId.equals(owner) && !Boolean.TRUE.equals(redisTemplate.hasKey(NODE_KEY_PREFIX + owner))) {
+                redisTemplate.opsForHash().delete(key, sessionId);
+            }
+        });
+    }
+    
+    private static String userOf(Principal principal) {
+        return principal != null ? principal.getName() : null;
+    }
+}
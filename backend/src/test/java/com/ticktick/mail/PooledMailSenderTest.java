@@ -0,0 +1,229 @@
+package com.ticktick.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PooledMailSenderTest {
+    
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort());
+    
+    private final List<PooledMailSender> senders = new ArrayList<>();
+    
+    @AfterEach
+    void tearDown() {
+        senders.forEach(PooledMailSender::shutdown);
+    }
+    
+    @Test
+    void deliversBatchOverPooledConnection() throws Exception {
+        PooledMailSender sender = sender("127.0.0.1", greenMail.getSmtp().getPort(), 30_000);
+        
+        List<Exception> results = sender.send(List.of(
+                new EmailMessage("ann@example.com", "Reminder", "Water the plants"),
+                new EmailMessage("bob@example.com", "Reminder", "Call the bank"),
+                new EmailMessage("cyd@example.com", "Reminder", "Book flights")));
+        
+        assertThat(results).containsOnlyNulls().hasSize(3);
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(Arrays.stream(received).map(this::recipient))
+                .containsExactlyInAnyOrder("ann@example.com", "bob@example.com", "cyd@example.com");
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"450 4.2.1 Mailbox busy", "451 4.7.1 Try again later"})
+    void pausesDeliveryWhenRecipientIsDeferred(String reply) throws Exception {
+        try (ScriptedSmtpServer server = new ScriptedSmtpServer(Map.of("busy@example.com", reply), Map.of())) {
+            PooledMailSender sender = sender(server.host(), server.port(), 500);
+            
+            long started = System.nanoTime();
+            List<Exception> results = sender.send(List.of(
+                    new EmailMessage("busy@example.com", "Reminder", "Water the plants"),
+                    new EmailMessage("ann@example.com", "Reminder", "Call the bank")));
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+            
+            assertThat(results.get(0)).isInstanceOf(SendFailedException.class);
+            assertThat(PooledMailSender.replyCode((MessagingException) results.get(0)))
+                    .isEqualTo(Integer.parseInt(reply.substring(0, 3)));
+            assertThat(results.get(1)).isNull();
+            assertThat(server.delivered).containsExactly("ann@example.com");
+            assertThat(elapsedMillis).isGreaterThanOrEqualTo(500);
+        }
+    }
+    
+    @Test
+    void keepsSendingWhenRecipientIsRejected() throws Exception {
+        try (ScriptedSmtpServer server = new ScriptedSmtpServer(
+                Map.of("nobody@example.com", "550 5.1.1 No such user"), Map.of())) {
+            PooledMailSender sender = sender(server.host(), server.port(), 60_000);
+            
+            long started = System.nanoTime();
+            List<Exception> results = sender.send(List.of(
+                    new EmailMessage("nobody@example.com", "Reminder", "Water the plants"),
+                    new EmailMessage("ann@example.com", "Reminder", "Call the bank")));
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+            
+            assertThat(PooledMailSender.replyCode((MessagingException) results.get(0))).isEqualTo(550);
+            assertThat(results.get(1)).isNull();
+            assertThat(server.delivered).containsExactly("ann@example.com");
+            assertThat(server.connections.get()).isEqualTo(1);
+            assertThat(elapsedMillis).isLessThan(60_000);
+        }
+    }
+    
+    @Test
+    void reconnectsWhenServerClosesAfterMessage() throws Exception {
+        try (ScriptedSmtpServer server = new ScriptedSmtpServer(
+                Map.of(), Map.of("ann@example.com", "421 4.3.2 Service not available, closing channel"))) {
+            PooledMailSender sender = sender(server.host(), server.port(), 100);
+            
+            List<Exception> results = sender.send(List.of(
+                    new EmailMessage("ann@example.com", "Reminder", "Water the plants"),
+                    new EmailMessage("bob@example.com", "Reminder", "Call the bank")));
+            
+            assertThat(PooledMailSender.replyCode((MessagingException) results.get(0))).isEqualTo(421);
+            assertThat(results.get(1)).isNull();
+            assertThat(server.delivered).containsExactly("bob@example.com");
+            assertThat(server.connections.get()).isEqualTo(2);
+        }
+    }
+    
+    private PooledMailSender sender(String host, int port, long throttlePauseMillis) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(host);
+        mailSender.setPort(port);
+        mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "5000");
+        mailSender.getJavaMailProperties().put("mail.smtp.timeout", "5000");
+        // GreenMail brings the older com.sun.mail provider along; the app only ever runs Angus Mail's
+        mailSender.getJavaMailProperties().put("mail.smtp.class", "org.eclipse.angus.mail.smtp.SMTPTransport");
+        PooledMailSender sender = new PooledMailSender(mailSender, "noreply@ticktick.com",
+                1, 1000, 100, 30_000, 5_000, throttlePauseMillis);
+        senders.add(sender);
+        return sender;
+    }
+    
+    private String recipient(MimeMessage message) {
+        try {
+            return message.getAllRecipients()[0].toString();
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Speaks just enough SMTP for the sender, answering chosen recipients' RCPT or DATA with the
+     * given reply. A 421 closes the connection, as a real server would.
+     */
+    private static final class ScriptedSmtpServer implements AutoCloseable {
+        
+        private final ServerSocket socket;
+        private final Map<String, String> recipientReplies;
+        private final Map<String, String> dataReplies;
+        private final AtomicInteger connections = new AtomicInteger();
+        private final List<String> delivered = new CopyOnWriteArrayList<>();
+        
+        ScriptedSmtpServer(Map<String, String> recipientReplies, Map<String, String> dataReplies) throws IOException {
+            this.socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            this.recipientReplies = recipientReplies;
+            this.dataReplies = dataReplies;
+            Thread acceptor = new Thread(this::accept, "scripted-smtp");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+        
+        String host() {
+            return socket.getInetAddress().getHostAddress();
+        }
+        
+        int port() {
+            return socket.getLocalPort();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+        
+        // One connection at a time is all the single-connection pool under test ever opens
+        private void accept() {
+            while (!socket.isClosed()) {
+                try (Socket client = socket.accept()) {
+                    connections.incrementAndGet();
+                    converse(client);
+                } catch (IOException e) {
+                    // Closed by the test, or the client hung up
+                }
+            }
+        }
+        
+        private void converse(Socket client) throws IOException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+            Writer out = new OutputStreamWriter(client.getOutputStream(), StandardCharsets.US_ASCII);
+            reply(out, "220 localhost ESMTP");
+            String recipient = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase(Locale.ROOT);
+                if (command.startsWith("EHLO")) {
+                    reply(out, "250-localhost\r\n250 8BITMIME");
+                } else if (command.startsWith("RCPT TO:")) {
+                    recipient = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                    reply(out, recipientReplies.getOrDefault(recipient, "250 2.1.5 OK"));
+                } else if (command.equals("DATA")) {
+                    reply(out, "354 Go ahead");
+                    String data;
+                    while ((data = in.readLine()) != null && !data.equals(".")) {
+                        // Message content is not inspected
+                    }
+                    String answer = dataReplies.getOrDefault(recipient, "250 2.0.0 Queued");
+                    if (answer.startsWith("250")) {
+                        delivered.add(recipient);
+                    }
+                    reply(out, answer);
+                    if (answer.startsWith("421")) {
+                        return;
+                    }
+                } else if (command.equals("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    // MAIL, RSET and NOOP
+                    reply(out, "250 OK");
+                }
+            }
+        }
+        
+        private void reply(Writer out, String reply) throws IOException {
+            out.write(reply + "\r\n");
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.ticktick.service;
+
+import com.ticktick.entity.NotificationOutbox;
+import com.ticktick.mail.EmailMessage;
+import com.ticktick.repository.NotificationOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationOutboxServiceTest {
+    
+    @Mock
+    private NotificationOutboxRepository outboxRepository;
+    
+    @Mock
+    private NotificationService notificationService;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    @Mock
+    private ThreadPoolTaskExecutor emailExecutor;
+    
+    @Mock
+    private ThreadPoolTaskExecutor pushExecutor;
+    
+    private NotificationOutboxService outboxService;
+    
+    @BeforeEach
+    void setUp() {
+        outboxService = new NotificationOutboxService(outboxRepository, notificationService, transactionManager,
+                new SimpleMeterRegistry(), emailExecutor, pushExecutor);
+        ReflectionTestUtils.setField(outboxService, "batchSize", 50);
+        ReflectionTestUtils.setField(outboxService, "maxAttempts", 6);
+        ReflectionTestUtils.setField(outboxService, "leaseSeconds", 300L);
+        ReflectionTestUtils.setField(outboxService, "emailBatchSize", 20);
+    }
+    
+    @Test
+    void queuesPushWithoutRecipient() {
+        outboxService.enqueue(NotificationOutbox.Channel.PUSH, 3L, null, "Reminder", "Water the plants");
+        
+        ArgumentCaptor<NotificationOutbox> saved = ArgumentCaptor.forClass(NotificationOutbox.class);
+        verify(outboxRepository).save(saved.capture());
+        assertThat(saved.getValue().getChannel()).isEqualTo(NotificationOutbox.Channel.PUSH);
+        assertThat(saved.getValue().getRecipient()).isNull();
+        assertThat(saved.getValue().getStatus()).isEqualTo(NotificationOutbox.Status.PENDING);
+    }
+    
+    @Test
+    void skipsEmailWithoutRecipient() {
+        outboxService.enqueue(NotificationOutbox.Channel.EMAIL, 3L, null, "Reminder", "Water the plants");
+        
+        verify(outboxRepository, never()).save(any());
+    }
+    
+    @Test
+    void renewsLeaseWhenSendStarts() {
+        NotificationOutbox notification = email(1L, NotificationOutbox.Status.PENDING, 0);
+        List<Runnable> queued = queueOnEmailExecutor();
+        when(outboxRepository.lockDue(eq("EMAIL"), any(), anyInt())).thenReturn(List.of(notification));
+        
+        outboxService.dispatchEmail();
+        
+        ArgumentCaptor<LocalDateTime> claimLease = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxRepository).markSending(eq(List.of(1L)), eq(NotificationOutbox.Status.SENDING), claimLease.capture());
+        when(outboxRepository.lockLeased(List.of(1L), claimLease.getValue())).thenReturn(List.of(1L));
+        when(notificationService.sendEmailBatch(anyList())).thenReturn(nulls(1));
+        
+        queued.get(0).run();
+        
+        ArgumentCaptor<LocalDateTime> leases = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxRepository, times(2)).markSending(any(), eq(NotificationOutbox.Status.SENDING), leases.capture());
+        assertThat(leases.getAllValues().get(1)).isAfterOrEqualTo(claimLease.getValue());
+        verify(notificationService).sendEmailBatch(List.of(new EmailMessage("ann@example.com", "Reminder", "Water the plants")));
+        verify(outboxRepository).markSent(eq(List.of(1L)), eq(NotificationOutbox.Status.SENT), any());
+    }
+    
+    @Test
+    void skipsRowsClaimedAgainWhileQueued() {
+        NotificationOutbox notification = email(1L, NotificationOutbox.Status.PENDING, 0);
+        List<Runnable> queued = queueOnEmailExecutor();
+        when(outboxRepository.lockDue(eq("EMAIL"), any(), anyInt())).thenReturn(List.of(notification));
+        when(outboxRepository.lockLeased(any(), any())).thenReturn(List.of());
+        
+        outboxService.dispatchEmail();
+        queued.get(0).run();
+        
+        verify(notificationService, never()).sendEmailBatch(anyList());
+        verify(outboxRepository, never()).markSent(any(), any(), any());
+    }
+    
+    @Test
+    void countsExpiredLeaseAsAttempt() {
+        NotificationOutbox notification = email(1L, NotificationOutbox.Status.SENDING, 2);
+        queueOnEmailExecutor();
+        when(outboxRepository.lockDue(eq("EMAIL"), any(), anyInt())).thenReturn(List.of(notification));
+        
+        outboxService.dispatchEmail();
+        
+        assertThat(notification.getAttempts()).isEqualTo(3);
+        assertThat(notification.getLastError()).isEqualTo("Delivery lease expired");
+        verify(outboxRepository).markSending(eq(List.of(1L)), eq(NotificationOutbox.Status.SENDING), any());
+    }
+    
+    @Test
+    void givesUpWhenExpiredLeaseReachesMaxAttempts() {
+        NotificationOutbox notification = email(1L, NotificationOutbox.Status.SENDING, 5);
+        List<Runnable> queued = queueOnEmailExecutor();
+        when(outboxRepository.lockDue(eq("EMAIL"), any(), anyInt())).thenReturn(List.of(notification));
+        
+        outboxService.dispatchEmail();
+        
+        assertThat(notification.getStatus()).isEqualTo(NotificationOutbox.Status.DEAD);
+        assertThat(notification.getAttempts()).isEqualTo(6);
+        assertThat(queued).isEmpty();
+        verify(outboxRepository, never()).markSending(any(), any(), any());
+    }
+    
+    // Chunks are collected instead of run, so the test decides when their send starts
+    private List<Runnable> queueOnEmailExecutor() {
+        List<Runnable> queued = new ArrayList<>();
+        when(emailExecutor.getThreadPoolExecutor()).thenReturn(
+                new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(10)));
+        lenient().doAnswer(invocation -> queued.add(invocation.getArgument(0))).when(emailExecutor).execute(any(Runnable.class));
+        return queued;
+    }
+    
+    private static NotificationOutbox email(Long id, NotificationOutbox.Status status, int attempts) {
+        return NotificationOutbox.builder()
+                .id(id)
+                .channel(NotificationOutbox.Channel.EMAIL)
+                .userId(3L)
+                .recipient("ann@example.com")
+                .subject("Reminder")
+                .body("Water the plants")
+                .status(status)
+                .attempts(attempts)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+    
+    private static List<Exception> nulls(int size) {
+        List<Exception> results = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            results.add(null);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,118 @@
+package com.ticktick.service;
+
+import com.ticktick.mail.PooledMailSender;
+import com.ticktick.push.LoggingPushGateway;
+import com.ticktick.push.PushGateway;
+import com.ticktick.push.PushMessage;
+import com.ticktick.repository.DeviceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceTest {
+    
+    @Mock
+    private PooledMailSender mailSender;
+    
+    @Mock
+    private DeviceRepository deviceRepository;
+    
+    @Mock
+    private DeviceService deviceService;
+    
+    private PushGateway pushGateway;
+    private NotificationService notificationService;
+    
+    @BeforeEach
+    void setUp() {
+        pushGateway = spy(new LoggingPushGateway());
+        notificationService = new NotificationService(mailSender, pushGateway, deviceRepository, deviceService);
+    }
+    
+    @Test
+    void sharesOneMulticastCallBetweenMessagesWithTheSameContent() throws Exception {
+        when(deviceRepository.findTokensByUserIdIn(any())).thenReturn(List.of(
+                token(1L, "a1"), token(1L, "a2"), token(2L, "b1")));
+        
+        List<Exception> results = notificationService.sendPushBatch(List.of(
+                new PushMessage(1L, "Reminder", "Pay rent"),
+                new PushMessage(2L, "Reminder", "Pay rent")));
+        
+        assertThat(results).containsExactly(null, null);
+        verify(pushGateway).sendMulticast(List.of("a1", "a2", "b1"), "Reminder", "Pay rent");
+        verify(deviceService, never()).removeInvalidTokens(any());
+    }
+    
+    @Test
+    void splitsLargeAudiencesIntoCallsOfAtMostMaxTokens() throws Exception {
+        List<DeviceRepository.DeviceToken> tokens = new ArrayList<>();
+        IntStream.range(0, 1200).forEach(i -> tokens.add(token((long) i, "t" + i)));
+        when(deviceRepository.findTokensByUserIdIn(any())).thenReturn(tokens);
+        
+        List<PushMessage> messages = IntStream.range(0, 1200)
+                .mapToObj(i -> new PushMessage((long) i, "Digest", "3 tasks due"))
+                .toList();
+        List<Exception> results = notificationService.sendPushBatch(messages);
+        
+        assertThat(results).hasSize(1200).containsOnlyNulls();
+        verify(pushGateway, times(3)).sendMulticast(anyList(), eq("Digest"), eq("3 tasks due"));
+    }
+    
+    @Test
+    void treatsUsersWithoutDevicesAsDelivered() throws Exception {
+        when(deviceRepository.findTokensByUserIdIn(any())).thenReturn(List.of());
+        
+        List<Exception> results = notificationService.sendPushBatch(List.of(new PushMessage(7L, "Reminder", "Stretch")));
+        
+        assertThat(results).containsExactly((Exception) null);
+        verify(pushGateway, never()).sendMulticast(anyList(), anyString(), anyString());
+    }
+    
+    @Test
+    void removesRejectedTokensAndReportsFailuresForRetry() throws Exception {
+        when(deviceRepository.findTokensByUserIdIn(any())).thenReturn(List.of(token(1L, "stale"), token(2L, "flaky")));
+        doReturn(List.of(PushGateway.PushOutcome.INVALID_TOKEN, PushGateway.PushOutcome.FAILED))
+                .when(pushGateway).sendMulticast(anyList(), anyString(), anyString());
+        
+        List<Exception> results = notificationService.sendPushBatch(List.of(
+                new PushMessage(1L, "Reminder", "Call mum"),
+                new PushMessage(2L, "Reminder", "Call mum")));
+        
+        assertThat(results.get(1)).isNotNull();
+        verify(deviceService).removeInvalidTokens(Set.of("stale"));
+    }
+    
+    private static DeviceRepository.DeviceToken token(Long userId, String token) {
+        return new DeviceRepository.DeviceToken() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+            
+            @Override
+            public String getToken() {
+                return token;
+            }
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package com.ticktick.service;
+
+import com.ticktick.dto.task.SuggestionDTO;
+import com.ticktick.event.SuggestionChangedEvent;
+import com.ticktick.repository.TagRepository;
+import com.ticktick.repository.TaskListRepository;
+import com.ticktick.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TypeaheadServiceTest {
+    
+    private static final Long USER_ID = 1L;
+    
+    @Mock
+    private TaskRepository taskRepository;
+    
+    @Mock
+    private TaskListRepository taskListRepository;
+    
+    @Mock
+    private TagRepository tagRepository;
+    
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    private TypeaheadService typeaheadService;
+    
+    @BeforeEach
+    void setUp() {
+        typeaheadService = new TypeaheadService(taskRepository, taskListRepository, tagRepository, eventPublisher,
+                transactionManager);
+        ReflectionTestUtils.setField(typeaheadService, "maxUsers", 100);
+        typeaheadService.init();
+    }
+    
+    @Test
+    void publishesChangesInsteadOfApplyingThemInsideTheTransaction() {
+        typeaheadService.tagChanged(USER_ID, 5L, "errands");
+        
+        verify(eventPublisher).publishEvent(new SuggestionChangedEvent(USER_ID, SuggestionDTO.Type.TAG, 5L, "errands"));
+    }
+    
+    @Test
+    void keepsChangesCommittedWhileTheIndexIsBeingBuilt() {
+        when(taskListRepository.findIdAndNameByUserId(USER_ID)).thenReturn(List.of());
+        when(tagRepository.findIdAndNameByUserId(USER_ID)).thenReturn(List.of());
+        // The task is renamed and another one deleted after the build started; the rows read are older
+        when(taskRepository.findIdAndTitleByUserId(USER_ID)).thenAnswer(invocation -> {
+            typeaheadService.onSuggestionChanged(new SuggestionChangedEvent(USER_ID, SuggestionDTO.Type.TASK, 1L, "Book flights"));
+            typeaheadService.onSuggestionChanged(new SuggestionChangedEvent(USER_ID, SuggestionDTO.Type.TASK, 2L, null));
+            return rows(new Object[]{1L, "Book hotel"}, new Object[]{2L, "Book taxi"});
+        });
+        
+        List<SuggestionDTO> suggestions = typeaheadService.suggest(USER_ID, "book", 10);
+        
+        assertThat(suggestions).extracting(SuggestionDTO::getText).containsExactly("Book flights");
+    }
+    
+    @Test
+    void appliesCommittedChangesToALoadedIndex() {
+        when(taskListRepository.findIdAndNameByUserId(USER_ID)).thenReturn(List.of());
+        when(tagRepository.findIdAndNameByUserId(USER_ID)).thenReturn(rows(new Object[]{3L, "home"}));
+        when(taskRepository.findIdAndTitleByUserId(USER_ID)).thenReturn(List.of());
+        typeaheadService.suggest(USER_ID, "ho", 10);
+        
+        typeaheadService.onSuggestionChanged(new SuggestionChangedEvent(USER_ID, SuggestionDTO.Type.TAG, 3L, "household"));
+        typeaheadService.onSuggestionChanged(new SuggestionChangedEvent(USER_ID, SuggestionDTO.Type.TAG, 4L, "hobby"));
+        
+        assertThat(typeaheadService.suggest(USER_ID, "ho", 10))
+                .extracting(SuggestionDTO::getText)
+                .containsExactlyInAnyOrder("household", "hobby");
+    }
+    
+    @Test
+    void servesLoadedIndexWithoutTransaction() {
+        when(taskListRepository.findIdAndNameByUserId(USER_ID)).thenReturn(List.of());
+        when(tagRepository.findIdAndNameByUserId(USER_ID)).thenReturn(List.of());
+        when(taskRepository.findIdAndTitleByUserId(USER_ID)).thenReturn(rows(new Object[]{1L, "Book hotel"}));
+        
+        typeaheadService.suggest(USER_ID, "bo", 10);
+        typeaheadService.suggest(USER_ID, "boo", 10);
+        typeaheadService.suggest(USER_ID, "book", 10);
+        
+        // Only the build opened one
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(taskRepository, times(1)).findIdAndTitleByUserId(USER_ID);
+    }
+    
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
@@ -0,0 +1,167 @@
+package com.ticktick.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two nodes in redis relay mode, each with its own messenger, registry and simple broker, sharing
+ * an in-process stand-in for Redis.
+ */
+class RealtimeMessengerTest {
+    
+    private static final String USER = "alice";
+    private static final String DESTINATION = "/queue/tasks";
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InMemoryRedis redis = new InMemoryRedis();
+    
+    private Node nodeA;
+    private Node nodeB;
+    
+    @BeforeEach
+    void setUp() {
+        nodeA = new Node();
+        nodeB = new Node();
+    }
+    
+    @Test
+    void deliversToUserConnectedToAnotherNode() {
+        nodeB.connect(USER, "session-1");
+        
+        nodeA.messenger.sendToUser(USER, DESTINATION, Map.of("id", 7));
+        
+        assertThat(nodeB.delivered).singleElement().satisfies(message -> {
+            assertThat(SimpMessageHeaderAccessor.getDestination(message.getHeaders())).isEqualTo("/user/" + USER + DESTINATION);
+            assertThat(new String((byte[]) message.getPayload(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":7}");
+        });
+    }
+    
+    @Test
+    void skipsPublishingWhenUserHasNoSessionOnAnyNode() {
+        nodeA.messenger.sendToUser(USER, DESTINATION, Map.of("id", 7));
+        
+        assertThat(redis.published).isEmpty();
+        assertThat(nodeB.delivered).isEmpty();
+    }
+    
+    private class Node {
+        
+        private final List<Message<?>> delivered = new CopyOnWriteArrayList<>();
+        private final WebSocketSessionRegistry registry;
+        private final RealtimeMessenger messenger;
+        
+        Node() {
+            StringRedisTemplate redisTemplate = new StringRedisTemplate(redis.connectionFactory());
+            // Stands in for this node's simple broker
+            SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> delivered.add(message));
+            registry = new WebSocketSessionRegistry(redisTemplate, "redis");
+            ReflectionTestUtils.setField(registry, "registryTtlSeconds", 60L);
+            messenger = new RealtimeMessenger(messagingTemplate, redisTemplate, objectMapper, registry, "redis");
+            redis.subscribe(RealtimeMessenger.RELAY_CHANNEL, new RedisRelayListener(messenger, objectMapper));
+        }
+        
+        void connect(String user, String sessionId) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECTED);
+            accessor.setSessionId(sessionId);
+            Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+            registry.onConnected(new SessionConnectedEvent(this, message, () -> user));
+        }
+    }
+    
+    /**
+     * Just enough of Redis for the relay: string keys, hashes and synchronous pub/sub. Expiry is
+     * ignored. Any other command fails the test.
+     */
+    private static class InMemoryRedis {
+        
+        private final Map<String, String> values = new ConcurrentHashMap<>();
+        private final Map<String, Map<String, String>> hashes = new ConcurrentHashMap<>();
+        private final Map<String, List<MessageListener>> subscribers = new ConcurrentHashMap<>();
+        private final List<String> published = new CopyOnWriteArrayList<>();
+        
+        void subscribe(String channel, MessageListener listener) {
+            subscribers.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(listener);
+        }
+        
+        RedisConnectionFactory connectionFactory() {
+            RedisConnection connection = (RedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{RedisConnection.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "setEx" -> {
+                            values.put(string(args[0]), string(args[2]));
+                            yield true;
+                        }
+                        case "hSet" -> hashes.computeIfAbsent(string(args[0]), key -> new ConcurrentHashMap<>())
+                                .put(string(args[1]), string(args[2])) == null;
+                        case "hLen" -> (long) hashes.getOrDefault(string(args[0]), Map.of()).size();
+                        case "publish" -> publish(args[0], (byte[]) args[1]);
+                        case "expire", "pExpire" -> true;
+                        case "isPipelined", "isQueueing", "isClosed" -> false;
+                        case "close" -> null;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+            return new RedisConnectionFactory() {
+                @Override
+                public RedisConnection getConnection() {
+                    return connection;
+                }
+                
+                @Override
+                public RedisClusterConnection getClusterConnection() {
+                    throw new UnsupportedOperationException();
+                }
+                
+                @Override
+                public boolean getConvertPipelineAndTxResults() {
+                    return false;
+                }
+                
+                @Override
+                public RedisSentinelConnection getSentinelConnection() {
+                    throw new UnsupportedOperationException();
+                }
+                
+                @Override
+                public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+                    return null;
+                }
+            };
+        }
+        
+        private long publish(Object channel, byte[] body) {
+            published.add(new String(body, StandardCharsets.UTF_8));
+            List<MessageListener> listeners = subscribers.getOrDefault(string(channel), List.of());
+            listeners.forEach(listener -> listener.onMessage(new DefaultMessage((byte[]) channel, body), null));
+            return listeners.size();
+        }
+        
+        private static String string(Object bytes) {
+            return new String((byte[]) bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -3,7 +3,7 @@ import { format, eachDayOfInterval, startOfWeek, endOfWeek, isSameDay } from 'da
 import { Check, Plus, Flame, Trophy, Trash2 } from 'lucide-react';
 import { useQuery, useMutation, useQueryClient } from '@tanstack/react-query';
 import { habitAPI } from '../services/api';
-import type { Habit } from '../types';
+import type { Habit, HabitStats } from '../types';
 import ConfirmationModal from './ConfirmationModal';
 
 export default function HabitTracker() {
@@ -12,14 +12,28 @@ export default function HabitTracker() {
     const [habitToDelete, setHabitToDelete] = useState<number | null>(null);
     const queryClient = useQueryClient();
 
+    const today = new Date();
+    const weekStart = startOfWeek(today, { weekStartsOn: 1 }); // Monday start
+    const weekEnd = endOfWeek(today, { weekStartsOn: 1 });
+    const weekDays = eachDayOfInterval({ start: weekStart, end: weekEnd });
+
+    // Completions are only returned for the requested window
     const { data: habits = [] } = useQuery({
         queryKey: ['habits'],
         queryFn: async () => {
-            const response = await habitAPI.getAll();
+            const response = await habitAPI.getAll(format(weekStart, 'yyyy-MM-dd'), format(weekEnd, 'yyyy-MM-dd'));
             return response.data as Habit[];
         },
     });
 
+    const { data: stats = [] } = useQuery({
+        queryKey: ['habitStats'],
+        queryFn: async () => {
+            const response = await habitAPI.getStats();
+            return response.data as HabitStats[];
+        },
+    });
+
     const createHabitMutation = useMutation({
         mutationFn: (name: string) => habitAPI.create({ name, color: 'bg-blue-500', icon: 'check' }),
         onSuccess: () => {
@@ -33,6 +47,7 @@ export default function HabitTracker() {
         mutationFn: ({ id, date }: { id: number; date: string }) => habitAPI.toggle(id, date),
         onSuccess: () => {
             queryClient.invalidateQueries({ queryKey: ['habits'] });
+            queryClient.invalidateQueries({ queryKey: ['habitStats'] });
         },
     });
 
@@ -44,11 +59,6 @@ export default function HabitTracker() {
         },
     });
 
-    const today = new Date();
-    const weekStart = startOfWeek(today, { weekStartsOn: 1 }); // Monday start
-    const weekEnd = endOfWeek(today, { weekStartsOn: 1 });
-    const weekDays = eachDayOfInterval({ start: weekStart, end: weekEnd });
-
     const handleCreate = (e: React.FormEvent) => {
         e.preventDefault();
         if (newHabitName.trim()) {
@@ -56,11 +66,9 @@ export default function HabitTracker() {
         }
     };
 
-    const calculateStreak = (habit: Habit) => {
-        // Simple streak calculation logic (placeholder)
-        // In a real app, this would be calculated on the backend or with more complex logic
-        return habit.completedDates.length;
-    };
+    // Streaks are maintained on the backend as completions are toggled
+    const currentStreak = (habit: Habit) =>
+        stats.find((s) => s.habitId === habit.id)?.currentStreak ?? 0;
 
     return (
         <div className="h-full p-8 bg-white dark:bg-gray-900 overflow-y-auto">
@@ -112,7 +120,7 @@ export default function HabitTracker() {
                         <div>
                             <p className="text-purple-100 text-sm font-medium">Total Streaks</p>
                             <p className="text-3xl font-bold">
-                                {habits.reduce((acc, h) => acc + calculateStreak(h), 0)}
+                                {habits.reduce((acc, h) => acc + currentStreak(h), 0)}
                             </p>
                         </div>
                     </div>
@@ -122,7 +130,9 @@ export default function HabitTracker() {
                         </div>
                         <div>
                             <p className="text-blue-100 text-sm font-medium">Total Completed</p>
-                            <p className="text-3xl font-bold">148</p>
+                            <p className="text-3xl font-bold">
+                                {stats.reduce((acc, s) => acc + s.totalCompletions, 0)}
+                            </p>
                         </div>
                     </div>
                     <div className="card p-6 flex items-center gap-4 bg-gradient-to-br from-orange-500 to-amber-600 text-white border-none">
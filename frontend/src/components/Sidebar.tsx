@@ -1,6 +1,6 @@
 import { Calendar, Clock, Inbox, List as ListIcon, LogOut, Moon, Sun, User, CalendarDays, LayoutGrid, Activity, Timer, Search, CheckSquare, ChevronDown } from 'lucide-react';
 import { useAuth } from '../context/AuthContext';
-import type { TaskList } from '../types';
+import type { SmartListCounts, TaskList } from '../types';
 import { useTheme } from '../context/ThemeContext';
 import { useState } from 'react';
 
@@ -8,9 +8,10 @@ interface SidebarProps {
     selectedView: 'today' | 'next7days' | 'overdue' | 'all' | 'calendar' | 'matrix' | 'habits' | 'focus' | number;
     onViewChange: (view: 'today' | 'next7days' | 'overdue' | 'all' | 'calendar' | 'matrix' | 'habits' | 'focus' | number) => void;
     taskLists: TaskList[];
+    smartListCounts?: SmartListCounts;
 }
 
-export default function Sidebar({ selectedView, onViewChange, taskLists }: SidebarProps) {
+export default function Sidebar({ selectedView, onViewChange, taskLists, smartListCounts }: SidebarProps) {
     const { user, logout } = useAuth();
     const { darkMode, toggleDarkMode } = useTheme();
     const [listsCollapsed, setListsCollapsed] = useState(false);
@@ -21,9 +22,9 @@ export default function Sidebar({ selectedView, onViewChange, taskLists }: Sideb
 
     const smartLists = [
         { id: 'all', label: 'Inbox', icon: Inbox, color: 'text-blue-500' },
-        { id: 'today', label: 'Today', icon: Calendar, color: 'text-green-500' },
-        { id: 'next7days', label: 'Next 7 Days', icon: CalendarDays, color: 'text-purple-500' },
-        { id: 'overdue', label: 'Overdue', icon: Clock, color: 'text-red-500' },
+        { id: 'today', label: 'Today', icon: Calendar, color: 'text-green-500', count: smartListCounts?.today },
+        { id: 'next7days', label: 'Next 7 Days', icon: CalendarDays, color: 'text-purple-500', count: smartListCounts?.next7Days },
+        { id: 'overdue', label: 'Overdue', icon: Clock, color: 'text-red-500', count: smartListCounts?.overdue },
     ];
 
     const modules = [
@@ -126,7 +127,10 @@ export default function Sidebar({ selectedView, onViewChange, taskLists }: Sideb
                                     >
                                         <Icon className={`w-4.5 h-4.5 ${item.color}`} />
                                         <span>{item.label}</span>
-                                        {isActive && <div className="ml-auto w-1.5 h-1.5 rounded-full bg-primary-500" />}
+                                        {!!item.count && (
+                                            <span className="ml-auto text-xs text-gray-400">{item.count}</span>
+                                        )}
+                                        {isActive && <div className={`${item.count ? 'ml-2' : 'ml-auto'} w-1.5 h-1.5 rounded-full bg-primary-500`} />}
                                     </button>
                                 );
                             })}
@@ -157,8 +161,8 @@ export default function Sidebar({ selectedView, onViewChange, taskLists }: Sideb
                                             >
                                                 <ListIcon className="w-4.5 h-4.5 text-gray-400" />
                                                 <span className="flex-1 text-left truncate">{list.name}</span>
-                                                {list.taskCount > 0 && (
-                                                    <span className="text-xs text-gray-400">{list.taskCount}</span>
+                                                {list.openCount > 0 && (
+                                                    <span className="text-xs text-gray-400">{list.openCount}</span>
                                                 )}
                                             </button>
                                         );
@@ -32,6 +32,7 @@ export default function TaskItem({ task, onClick }: TaskItemProps) {
                 recurrenceInterval: task.recurrenceInterval,
                 recurrenceEndDate: task.recurrenceEndDate,
                 recurrenceDays: task.recurrenceDays,
+                recurrenceRule: task.recurrenceRule,
                 sortOrder: task.sortOrder
             };
             return taskAPI.update(task.id, taskRequest);
@@ -7,7 +7,7 @@ import CalendarView from '../components/CalendarView';
 import MatrixView from '../components/MatrixView';
 import HabitTracker from '../components/HabitTracker';
 import FocusMode from '../components/FocusMode';
-import { taskAPI, taskListAPI } from '../services/api';
+import { taskAPI, bootstrapAPI } from '../services/api';
 import type { Task } from '../types';
 
 export default function Dashboard() {
@@ -50,14 +50,17 @@ export default function Dashboard() {
         enabled: selectedView !== 'habits' && selectedView !== 'focus',
     });
 
-    // Fetch task lists
-    const { data: taskLists = [] } = useQuery({
-        queryKey: ['taskLists'],
+    // Folders, lists, tags and smart-list counts arrive in one request
+    const { data: bootstrap } = useQuery({
+        queryKey: ['bootstrap'],
         queryFn: async () => {
-            const response = await taskListAPI.getAll();
+            const response = await bootstrapAPI.get();
             return response.data;
         },
     });
+    const taskLists = bootstrap
+        ? [...bootstrap.folders.flatMap((folder) => folder.taskLists), ...bootstrap.lists]
+        : [];
 
     const handleTaskClick = (task: Task) => {
         setSelectedTask(task);
@@ -100,6 +103,7 @@ export default function Dashboard() {
                 selectedView={selectedView}
                 onViewChange={setSelectedView}
                 taskLists={taskLists}
+                smartListCounts={bootstrap?.smartListCounts}
             />
 
             {/* Main Content */}
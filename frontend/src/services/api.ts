@@ -1,5 +1,5 @@
 import axios from 'axios';
-import type { AuthResponse, LoginRequest, SignUpRequest, Task, TaskRequest, TaskList, TaskListRequest } from '../types';
+import type { AuthResponse, LoginRequest, SignUpRequest, Task, TaskRequest, TaskList, TaskListRequest, Occurrence, Bootstrap, Tag } from '../types';
 
 const API_URL = import.meta.env.VITE_API_URL || 'http://localhost:8080/api';
 
@@ -74,6 +74,30 @@ export const taskAPI = {
     create: (data: TaskRequest) => api.post<Task>('/tasks', data),
     update: (id: number, data: TaskRequest) => api.put<Task>(`/tasks/${id}`, data),
     delete: (id: number) => api.delete(`/tasks/${id}`),
+    getOccurrences: (from: string, to: string) =>
+        api.get<Occurrence[]>('/tasks/occurrences', { params: { from, to } }),
+    materializeOccurrence: (id: number, start: string) =>
+        api.post<Task>(`/tasks/${id}/occurrences/${start}/materialize`),
+    cancelOccurrence: (id: number, start: string) => api.delete(`/tasks/${id}/occurrences/${start}`),
+};
+
+// Calendar API (dates are yyyy-MM-dd, both ends inclusive)
+export const calendarAPI = {
+    getTasks: (from: string, to: string) => api.get('/calendar/tasks', { params: { from, to } }),
+    getDayCounts: (from: string, to: string) => api.get('/calendar/days', { params: { from, to } }),
+};
+
+// Bootstrap API: everything the sidebar needs on startup in one request
+export const bootstrapAPI = {
+    get: () => api.get<Bootstrap>('/bootstrap'),
+};
+
+// Tag API
+export const tagAPI = {
+    getAll: () => api.get<Tag[]>('/tags'),
+    create: (data: { name: string; color?: string }) => api.post<Tag>('/tags', data),
+    update: (id: number, data: { name: string; color?: string }) => api.put<Tag>(`/tags/${id}`, data),
+    delete: (id: number) => api.delete(`/tags/${id}`),
 };
 
 // TaskList API
@@ -87,8 +111,9 @@ export const taskListAPI = {
 
 // Habit API
 export const habitAPI = {
-    getAll: () => api.get('/habits'),
+    getAll: (from?: string, to?: string) => api.get('/habits', { params: { from, to } }),
     create: (data: any) => api.post('/habits', data),
+    getStats: (year?: number) => api.get('/habits/stats', { params: { year } }),
     toggle: (id: number, date: string) => api.post(`/habits/${id}/toggle`, null, { params: { date } }),
     delete: (id: number) => api.delete(`/habits/${id}`),
 };
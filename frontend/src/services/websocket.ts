@@ -26,10 +26,15 @@ class WebSocketService {
             console.log('WebSocket connected');
             this.connected = true;
 
-            // Subscribe to user-specific task updates
+            // Subscribe to user-specific task updates, delivered as batches of
+            // { op: 'create' | 'update' | 'delete', id, fields } changes
             this.client?.subscribe(`/user/queue/tasks`, (message) => {
                 const data = JSON.parse(message.body);
-                onTaskUpdate(data);
+                if (data.type === 'batch') {
+                    data.changes.forEach((change: any) => onTaskUpdate(change));
+                } else {
+                    onTaskUpdate(data);
+                }
             });
         };
 
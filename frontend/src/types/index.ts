@@ -28,6 +28,7 @@ export interface Task {
     recurrenceInterval?: number;
     recurrenceEndDate?: string;
     recurrenceDays?: string;
+    recurrenceRule?: string;
     taskListId?: number;
     taskListName?: string;
     parentTaskId?: number;
@@ -41,6 +42,20 @@ export interface Task {
     updatedAt: string;
 }
 
+export interface Occurrence {
+    taskId: number;
+    occurrenceStart: string;
+    virtual: boolean;
+    materializedTaskId?: number;
+    title: string;
+    priority: 'NONE' | 'LOW' | 'MEDIUM' | 'HIGH';
+    status: 'TODO' | 'IN_PROGRESS' | 'COMPLETED';
+    dueDate: string;
+    startDate?: string;
+    allDay: boolean;
+    taskListId?: number;
+}
+
 export interface TaskList {
     id: number;
     name: string;
@@ -52,6 +67,8 @@ export interface TaskList {
     folderId?: number;
     folderName?: string;
     taskCount: number;
+    openCount: number;
+    completedCount: number;
     createdAt: string;
     updatedAt: string;
 }
@@ -74,6 +91,20 @@ export interface Tag {
     createdAt: string;
 }
 
+// Open tasks only
+export interface SmartListCounts {
+    today: number;
+    overdue: number;
+    next7Days: number;
+}
+
+export interface Bootstrap {
+    folders: Folder[]; // each with its own taskLists
+    lists: TaskList[]; // lists outside any folder
+    tags: Tag[];
+    smartListCounts: SmartListCounts;
+}
+
 export interface Reminder {
     id: number;
     remindAt: string;
@@ -127,6 +158,7 @@ export interface TaskRequest {
     recurrenceInterval?: number;
     recurrenceEndDate?: string;
     recurrenceDays?: string;
+    recurrenceRule?: string;
     sortOrder?: number;
 }
 
@@ -144,5 +176,19 @@ export interface Habit {
     color: string;
     icon: string;
     completedDates: string[];
+    completedFrom?: string | null; // window completedDates covers; null bounds mean all history
+    completedTo?: string | null;
     sortOrder: number;
 }
+
+export interface HabitStats {
+    habitId: number;
+    currentStreak: number;
+    longestStreak: number;
+    totalCompletions: number;
+    completionRate7Days: number;
+    completionRate30Days: number;
+    completionRateAllTime: number;
+    heatmapYear: number;
+    heatmap: string; // Base64 bitset, bit dayOfYear - 1, least significant bit first
+}